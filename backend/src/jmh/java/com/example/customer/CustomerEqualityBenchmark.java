@@ -0,0 +1,44 @@
+package com.example.customer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Customer#equals(Object)} and {@link Customer#hashCode()}, which the DAO tests and every
+ * hash-based collection of customers lean on.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerEqualityBenchmark {
+    private Customer customer;
+    private Customer same;
+    private Customer differentEmail;
+
+    @Setup
+    public void setUp() {
+        // separate String instances, so equals compares contents rather than references
+        customer = new Customer(42, new String("Tony"), new String("tony@gmail.com"), 30);
+        same = new Customer(42, new String("Tony"), new String("tony@gmail.com"), 30);
+        differentEmail = new Customer(42, new String("Tony"), new String("tony@yahoo.com"), 30);
+    }
+
+    @Benchmark
+    public boolean equalsSame() {
+        return customer.equals(same);
+    }
+
+    @Benchmark
+    public boolean equalsDifferentEmail() {
+        return customer.equals(differentEmail);
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return customer.hashCode();
+    }
+}
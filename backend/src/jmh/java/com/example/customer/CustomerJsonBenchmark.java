@@ -0,0 +1,47 @@
+package com.example.customer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialisation of a page of customers, the body of {@code GET /customers}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerJsonBenchmark {
+    @Param({ "50", "1000" })
+    public int customers;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ObjectWriter listWriter;
+    private List<Customer> page;
+
+    @Setup
+    public void setUp() {
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Customer.class));
+        page = new ArrayList<>(customers);
+        for (int i = 1; i <= customers; i++) {
+            page.add(new Customer(i, "Customer " + i, "customer" + i + "@example.com", 20 + i % 50));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeList() throws JsonProcessingException {
+        return listWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] writePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new CustomerPage(page, null));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.customer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The read paths of {@link CustomerListDataAccessService}. Customers get consecutive ids and ages spread
+ * evenly over 20..69, so an age matches rows / 50 of them. Pages read 50 rows from the middle of the
+ * table, and lookups pick a random customer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CustomerListDataAccessServiceBenchmark {
+    private static final int AGES = 50;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({ "10000", "1000000" })
+    public int rows;
+
+    private CustomerListDataAccessService dao;
+    private int firstId;
+    private int middleId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dao = new CustomerListDataAccessService();
+        dao.removeCustomersByIds(dao.selectAllCustomers().stream().map(Customer::getId).toList());
+        for (int i = 0; i < rows; i++) {
+            dao.insertCustomer(new Customer("Customer " + i, "customer" + i + "@example.com", 20 + i % AGES));
+        }
+        // the seeded demo customers took the first ids
+        firstId = dao.selectCustomerPage(0, 1).get(0).getId();
+        middleId = firstId + rows / 2;
+    }
+
+    @Benchmark
+    public List<Customer> selectAllCustomers() {
+        return dao.selectAllCustomers();
+    }
+
+    @Benchmark
+    public List<Customer> selectCustomerByAge() {
+        return dao.selectCustomerByAge(30);
+    }
+
+    @Benchmark
+    public List<Customer> selectCustomerPage() {
+        return dao.selectCustomerPage(middleId, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Customer> selectCustomerPageByAge() {
+        return dao.selectCustomerPageByAge(30, middleId, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Customer> selectCustomerPageByAgeRange() {
+        return dao.selectCustomerPageByAgeRange(30, 39, middleId, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Optional<Customer> selectCustomerById() {
+        return dao.selectCustomerById(randomId());
+    }
+
+    @Benchmark
+    public boolean existsCustomerWithEmail() {
+        return dao.existsCustomerWithEmail("customer" + ThreadLocalRandom.current().nextInt(rows) + "@example.com");
+    }
+
+    @Benchmark
+    public SortedMap<Integer, Long> countCustomersByAge() {
+        return dao.countCustomersByAge();
+    }
+
+    @Benchmark
+    public void forEachCustomer(Blackhole blackhole) {
+        dao.forEachCustomer(blackhole::consume);
+    }
+
+    private int randomId() {
+        return firstId + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
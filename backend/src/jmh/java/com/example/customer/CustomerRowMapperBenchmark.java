@@ -0,0 +1,66 @@
+package com.example.customer;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CustomerRowMapper} reads columns by label; the alternative reads them by position. The row
+ * sits behind a {@link ResultSet} proxy that resolves labels the way PgJDBC's {@code findColumn} does,
+ * with a hash lookup per call, so only the difference between the two is meaningful: the absolute
+ * numbers include the proxy dispatch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerRowMapperBenchmark {
+    private static final String[] COLUMNS = { "id", "name", "email", "age", "version" };
+
+    private final RowMapper<Customer> byLabel = new CustomerRowMapper();
+    private final RowMapper<Customer> byIndex = (rs, rowNum) -> new Customer(
+            rs.getInt(1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getInt(4),
+            rs.getLong(5)
+    );
+    private ResultSet resultSet;
+
+    @Setup
+    public void setUp() {
+        Object[] row = { 42, "Tony", "tony@gmail.com", 30, 7L };
+        Map<String, Integer> indexByLabel = new HashMap<>();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            indexByLabel.put(COLUMNS[i], i + 1);
+        }
+        resultSet = (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    int column = args[0] instanceof String label ? indexByLabel.get(label) : (Integer) args[0];
+                    return switch (method.getName()) {
+                        case "getInt", "getLong", "getString" -> row[column - 1];
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+
+    @Benchmark
+    public Customer mapRowByLabel() throws SQLException {
+        return byLabel.mapRow(resultSet, 0);
+    }
+
+    @Benchmark
+    public Customer mapRowByIndex() throws SQLException {
+        return byIndex.mapRow(resultSet, 0);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.customer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * {@link CustomerValidator#isValidEmail(CharSequence)} against the expression it replaced, compiled per
+ * call as the service used to do and compiled once, for a valid and an invalid address; and a whole
+ * registration checked by {@link CustomerValidator#validate(CustomerRegistrationRequest)}. Run with
+ * {@code -prof gc} to see the scanner's success path allocate nothing.
+ * <p>
+ * Last measured on JDK 17, one Xeon core, with a plain loop timing 2M calls per round (3 warmup, 5
+ * measured) and {@code ThreadMXBean.getThreadAllocatedBytes} for the allocation, in place of JMH and
+ * its gc profiler:
+ * <pre>
+ *                          tony.lo@example.com      not-an-email
+ *                          ns/op      B/op          ns/op      B/op
+ * patternCompiledPerCall    1062      2104           1220      2104
+ * precompiledPattern         345       200            233       200
+ * scanner                     54         0             22         0
+ * validateRegistration        57         0             32         0
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerValidationBenchmark {
+    private static final String EMAIL_REGEX = "^[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,6}$";
+    private static final Pattern PRECOMPILED = Pattern.compile(EMAIL_REGEX, Pattern.CASE_INSENSITIVE);
+
+    @Param({ "tony.lo@example.com", "not-an-email" })
+    public String email;
+
+    private CustomerRegistrationRequest registration;
+
+    @Setup
+    public void setUp() {
+        registration = new CustomerRegistrationRequest("Tony Lo", email, 30);
+    }
+
+    @Benchmark
+    public boolean patternCompiledPerCall() {
+        return Pattern.compile(EMAIL_REGEX, Pattern.CASE_INSENSITIVE).matcher(email).matches();
+    }
+
+    @Benchmark
+    public boolean precompiledPattern() {
+        return PRECOMPILED.matcher(email).matches();
+    }
+
+    @Benchmark
+    public boolean scanner() {
+        return CustomerValidator.isValidEmail(email);
+    }
+
+    @Benchmark
+    public int validateRegistration() {
+        return CustomerValidator.validate(registration);
+    }
+}
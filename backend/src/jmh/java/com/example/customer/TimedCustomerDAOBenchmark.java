@@ -0,0 +1,53 @@
+package com.example.customer;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of {@link TimedCustomerDAO} with the Prometheus registry used in production, on the
+ * cheapest call there is: a by-id lookup in the in-memory list DAO. Run it with several threads
+ * ({@code -t 4}) to include contention on the shared histograms.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimedCustomerDAOBenchmark {
+    private static final int CUSTOMERS = 10_000;
+
+    private CustomerDAO plain;
+    private CustomerDAO timed;
+    private int firstId;
+
+    @Setup
+    public void setUp() {
+        CustomerListDataAccessService dao = new CustomerListDataAccessService();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            dao.insertCustomer(new Customer("Customer " + i, "customer" + i + "@example.com", 20 + i % 50));
+        }
+        firstId = dao.selectCustomerPage(0, 1).get(0).getId();
+        plain = dao;
+        timed = TimedCustomerDAO.wrap(dao, "list", new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+    }
+
+    @Benchmark
+    public Optional<Customer> plain() {
+        return plain.selectCustomerById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Customer> timed() {
+        return timed.selectCustomerById(randomId());
+    }
+
+    private int randomId() {
+        return firstId + ThreadLocalRandom.current().nextInt(CUSTOMERS);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.customer;
+
+/**
+ * A record of a bulk registration that was not inserted.
+ * {@code row} is the zero-based position of the record in the submitted batch.
+ */
+public record BulkRegistrationFailure(
+        int row,
+        String email,
+        String reason
+) {
+}
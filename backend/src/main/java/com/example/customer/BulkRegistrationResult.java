@@ -0,0 +1,10 @@
+package com.example.customer;
+
+import java.util.List;
+
+public record BulkRegistrationResult(
+        int received,
+        int inserted,
+        List<BulkRegistrationFailure> failures
+) {
+}
@@ -0,0 +1,7 @@
+package com.example.customer;
+
+public record BulkRemovalResult(
+        int requested,
+        int removed
+) {
+}
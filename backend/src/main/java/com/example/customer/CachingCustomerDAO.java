@@ -0,0 +1,143 @@
+package com.example.customer;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Read-through cache in front of {@link CustomerDAO#selectCustomerById(Integer)}.
+ * <p>
+ * Caffeine bounds the cache by the estimated heap size of its entries and decides admission and
+ * eviction with W-TinyLFU, so one-off lookups do not push out the hot customers. Every write
+ * invalidates the affected id after the delegate returned; an invalidation drops a load of the same
+ * key that is in flight, so a concurrent read cannot put a stale row back.
+ * <p>
+ * The cache holds futures: the first reader of a missing id installs one and loads it on its own
+ * thread, concurrent readers of that id wait on it. The database call therefore runs outside
+ * Caffeine's map locks, which would otherwise pin a virtual thread to its carrier for the whole query.
+ * Cached customers are mutable entities, so only copies go in and out.
+ */
+public class CachingCustomerDAO extends ForwardingCustomerDAO implements MeterBinder {
+    // object header, boxed fields and the two Strings with their backing arrays
+    private static final int CUSTOMER_OVERHEAD_BYTES = 160;
+
+    private final AsyncCache<Integer, Customer> cache;
+
+    public CachingCustomerDAO(CustomerDAO delegate, long maximumSizeInBytes, Duration expireAfterWrite) {
+        super(delegate);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumSizeInBytes)
+                .weigher((Integer id, Customer customer) -> estimateSize(customer))
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Integer id) {
+        CompletableFuture<Customer> load = new CompletableFuture<>();
+        CompletableFuture<Customer> cached = cache.get(id, (key, executor) -> load);
+        if (cached == load) {
+            try {
+                // Caffeine drops futures that complete with null or exceptionally
+                load.complete(delegate.selectCustomerById(id).map(CachingCustomerDAO::copyOf).orElse(null));
+            } catch (RuntimeException e) {
+                load.completeExceptionally(e);
+            }
+        }
+        try {
+            return Optional.ofNullable(cached.join()).map(CachingCustomerDAO::copyOf);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cached customers are whole, so narrowed lookups are served from the cache too, narrowed to copies.
+     */
+    @Override
+    public Optional<Customer> selectCustomerFieldsById(Integer id, Set<CustomerField> fields) {
+        return selectCustomerById(id).map(customer -> CustomerField.project(customer, fields));
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        try {
+            delegate.insertCustomer(customer);
+        } finally {
+            invalidate(customer.getId());
+        }
+    }
+
+    @Override
+    public boolean removeCustomerById(Integer id) {
+        try {
+            return delegate.removeCustomerById(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public int removeCustomersByIds(Collection<Integer> ids) {
+        try {
+            return delegate.removeCustomersByIds(ids);
+        } finally {
+            cache.synchronous().invalidateAll(ids);
+        }
+    }
+
+    @Override
+    public void updateCustomer(Customer customer) {
+        try {
+            delegate.updateCustomer(customer);
+        } finally {
+            invalidate(customer.getId());
+        }
+    }
+
+    @Override
+    public CustomerUpdateResult updateCustomerById(Integer id, CustomerUpdateRequest update) {
+        try {
+            return delegate.updateCustomerById(id, update);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), "customers");
+    }
+
+    private void invalidate(Integer id) {
+        if (id != null) {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    private static int estimateSize(Customer customer) {
+        return CUSTOMER_OVERHEAD_BYTES + length(customer.getName()) + length(customer.getEmail());
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static Customer copyOf(Customer customer) {
+        return new Customer(
+                customer.getId(), customer.getName(), customer.getEmail(), customer.getAge(), customer.getVersion());
+    }
+}
@@ -1,10 +1,16 @@
 package com.example.customer;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.Objects;
 
+// customers read for a subset of fields (CustomerField) leave the others null, which the JSON leaves out
 @Entity
+@DynamicUpdate
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Table(
         name = "customer",
         uniqueConstraints = {
@@ -19,7 +25,9 @@ public class Customer {
     @SequenceGenerator(
             name = "customer_id_sequence",
             sequenceName = "customer_id_sequence",
-            allocationSize = 1
+            // must match the sequence INCREMENT (V3); Hibernate hands out the block below each nextval,
+            // as the column default does (V11)
+            allocationSize = 50
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -38,6 +46,12 @@ public class Customer {
             nullable = false
     )
     private String email;
+    // bumped on every change to the row; drives the ETags, and is not part of the JSON or of equals
+    @Version
+    @Column(
+            nullable = false
+    )
+    private long version;
 
     public Customer () {}
 
@@ -54,12 +68,17 @@ public class Customer {
         this.age = age;
     }
 
+    public Customer(int id, String name, String email, int age, long version) {
+        this(id, name, email, age);
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Customer customer = (Customer) o;
-        return id.equals(customer.id) && age.equals(customer.age) && Objects.equals(name, customer.name) && Objects.equals(email, customer.email);
+        return Objects.equals(id, customer.id) && Objects.equals(age, customer.age) && Objects.equals(name, customer.name) && Objects.equals(email, customer.email);
     }
 
     @Override
@@ -108,4 +127,13 @@ public class Customer {
     public void setAge(Integer age) {
         this.age = age;
     }
+
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
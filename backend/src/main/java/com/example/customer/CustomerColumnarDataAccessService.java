@@ -0,0 +1,558 @@
+package com.example.customer;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory customers stored column by column, for read-mostly analytics nodes.
+ * <p>
+ * Ids and ages are {@code int[]} columns, versions a {@code long[]} one; names and emails are UTF-8
+ * bytes packed into one arena and addressed by offset and length columns. {@link Customer} objects are
+ * only built for rows that are returned. Ids are generated in increasing order, so the id column stays
+ * sorted and id lookups and keyset pages are binary searches. Emails are found through an
+ * open-addressing table of row numbers that compares arena bytes. A row's version goes up with every
+ * update that changes it.
+ * <p>
+ * Removed rows are tombstoned (their age becomes {@link #DELETED}) and changed strings are appended, so
+ * the columns are compacted once more than half of the rows or arena bytes are dead. Writes take the
+ * write lock; reads share the read lock.
+ */
+@Repository("columnar")
+public class CustomerColumnarDataAccessService implements CustomerDAO {
+    private static final int DELETED = Integer.MIN_VALUE;
+    private static final int INITIAL_ROWS = 1024;
+
+    private final Lock readLock;
+    private final Lock writeLock;
+
+    private int lastId;
+    private int rows;
+    private int liveRows;
+    private int[] ids = new int[INITIAL_ROWS];
+    private int[] ages = new int[INITIAL_ROWS];
+    private long[] versions = new long[INITIAL_ROWS];
+    private int[] nameOffsets = new int[INITIAL_ROWS];
+    private int[] nameLengths = new int[INITIAL_ROWS];
+    private int[] emailOffsets = new int[INITIAL_ROWS];
+    private int[] emailLengths = new int[INITIAL_ROWS];
+
+    private byte[] arena = new byte[INITIAL_ROWS * 32];
+    private int arenaSize;
+    private int deadArenaBytes;
+
+    // row + 1 per slot, 0 when free; entries for dead rows or replaced emails are skipped and dropped on rehash
+    private int[] emailSlots = new int[INITIAL_ROWS * 2];
+    private int usedEmailSlots;
+
+    private final TreeMap<Integer, Long> customersPerAge = new TreeMap<>();
+
+    public CustomerColumnarDataAccessService() {
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        readLock.lock();
+        try {
+            List<Customer> customers = new ArrayList<>(liveRows);
+            for (int row = 0; row < rows; row++) {
+                if (ages[row] != DELETED) {
+                    customers.add(customerAt(row));
+                }
+            }
+            return customers;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Customer> selectCustomerByAge(Integer age) {
+        return selectCustomerPageByAge(age, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Customer> selectCustomerPage(int afterId, int limit) {
+        readLock.lock();
+        try {
+            List<Customer> page = new ArrayList<>(Math.min(limit, 1024));
+            for (int row = firstRowAfter(afterId); row < rows && page.size() < limit; row++) {
+                if (ages[row] != DELETED) {
+                    page.add(customerAt(row));
+                }
+            }
+            return page;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Customer> selectCustomerPageByAge(Integer age, int afterId, int limit) {
+        readLock.lock();
+        try {
+            int wanted = age;
+            if (wanted == DELETED) {
+                return List.of();
+            }
+            int[] ages = this.ages;
+            List<Customer> page = new ArrayList<>();
+            for (int row = firstRowAfter(afterId); row < rows && page.size() < limit; row++) {
+                if (ages[row] == wanted) {
+                    page.add(customerAt(row));
+                }
+            }
+            return page;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Customer> selectCustomerPageByAgeRange(int minAge, int maxAge, int afterId, int limit) {
+        readLock.lock();
+        try {
+            // DELETED sorts below every real age
+            int from = Math.max(minAge, DELETED + 1);
+            int[] ages = this.ages;
+            List<Customer> page = new ArrayList<>();
+            for (int row = firstRowAfter(afterId); row < rows && page.size() < limit; row++) {
+                int age = ages[row];
+                if (age >= from && age <= maxAge) {
+                    page.add(customerAt(row));
+                }
+            }
+            return page;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Integer id) {
+        readLock.lock();
+        try {
+            int row = rowOf(id);
+            return row < 0 ? Optional.empty() : Optional.of(customerAt(row));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * The id is always generated; an id already set on {@code customer} is ignored.
+     *
+     * @throws DuplicateKeyException if the email is taken, as the unique constraint does for the
+     *                               database DAOs
+     */
+    @Override
+    public void insertCustomer(Customer customer) {
+        if (insertCustomerIfEmailFree(customer).isEmpty()) {
+            throw new DuplicateKeyException("Email [%s] is taken".formatted(customer.getEmail()));
+        }
+    }
+
+    @Override
+    public Optional<Integer> insertCustomerIfEmailFree(Customer customer) {
+        writeLock.lock();
+        try {
+            return insert(customer);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> insertCustomers(List<Customer> customers) {
+        writeLock.lock();
+        try {
+            Set<String> taken = new HashSet<>();
+            for (Customer customer : customers) {
+                if (insert(customer).isEmpty()) {
+                    taken.add(customer.getEmail());
+                }
+            }
+            return taken;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeCustomerById(Integer id) {
+        writeLock.lock();
+        try {
+            boolean removed = remove(id);
+            compactIfSparse();
+            return removed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int removeCustomersByIds(Collection<Integer> ids) {
+        writeLock.lock();
+        try {
+            int removed = 0;
+            for (Integer id : new HashSet<>(ids)) {
+                if (remove(id)) {
+                    removed++;
+                }
+            }
+            compactIfSparse();
+            return removed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void updateCustomer(Customer customer) {
+        writeLock.lock();
+        try {
+            int row = rowOf(customer.getId());
+            if (row < 0) {
+                return;
+            }
+            byte[] email = utf8(customer.getEmail());
+            int owner = emailRow(email);
+            if (owner >= 0 && owner != row) {
+                throw new DuplicateKeyException("Email [%s] is taken".formatted(customer.getEmail()));
+            }
+            update(row, utf8(customer.getName()), email, customer.getAge());
+            compactIfSparse();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public CustomerUpdateResult updateCustomerById(Integer id, CustomerUpdateRequest update) {
+        writeLock.lock();
+        try {
+            int row = rowOf(id);
+            if (row < 0) {
+                return CustomerUpdateResult.notFound();
+            }
+            byte[] name = update.name() != null ? utf8(update.name()) : null;
+            byte[] email = update.email() != null ? utf8(update.email()) : null;
+            boolean nameChanged = name != null && !equalsArena(name, nameOffsets[row], nameLengths[row]);
+            boolean emailChanged = email != null && !equalsArena(email, emailOffsets[row], emailLengths[row]);
+            boolean ageChanged = update.age() != null && update.age() != ages[row];
+            if (!nameChanged && !emailChanged && !ageChanged) {
+                return CustomerUpdateResult.unchanged();
+            }
+            if (emailChanged && emailRow(email) >= 0) {
+                return CustomerUpdateResult.emailTaken();
+            }
+            update(row,
+                    nameChanged ? name : null,
+                    emailChanged ? email : null,
+                    ageChanged ? update.age() : ages[row]);
+            Customer updated = customerAt(row);
+            compactIfSparse();
+            return CustomerUpdateResult.updated(updated);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean existsCustomerWithEmail(String email) {
+        if (email == null) {
+            return false;
+        }
+        byte[] bytes = utf8(email);
+        readLock.lock();
+        try {
+            return emailRow(bytes) >= 0;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public SortedMap<Integer, Long> countCustomersByAge() {
+        readLock.lock();
+        try {
+            return new TreeMap<>(customersPerAge);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int reconcileCustomerCountsByAge() {
+        writeLock.lock();
+        try {
+            TreeMap<Integer, Long> actual = new TreeMap<>();
+            for (int row = 0; row < rows; row++) {
+                if (ages[row] != DELETED) {
+                    actual.merge(ages[row], 1L, Long::sum);
+                }
+            }
+            Set<Integer> ages = new HashSet<>(actual.keySet());
+            ages.addAll(customersPerAge.keySet());
+            int corrected = 0;
+            for (Integer age : ages) {
+                if (!Objects.equals(actual.get(age), customersPerAge.get(age))) {
+                    corrected++;
+                }
+            }
+            customersPerAge.clear();
+            customersPerAge.putAll(actual);
+            return corrected;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Approximate heap held by the columns, the arena and the email table.
+     */
+    long sizeInBytes() {
+        readLock.lock();
+        try {
+            return (long) ids.length * Integer.BYTES * 6 + arena.length + (long) emailSlots.length * Integer.BYTES
+                    + (long) versions.length * Long.BYTES;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // callers hold the write lock
+    private Optional<Integer> insert(Customer customer) {
+        byte[] email = utf8(customer.getEmail());
+        if (emailRow(email) >= 0) {
+            return Optional.empty();
+        }
+        if (rows == ids.length) {
+            growRows();
+        }
+        int row = rows++;
+        int id = ++lastId;
+        ids[row] = id;
+        ages[row] = customer.getAge();
+        versions[row] = 0;
+        countAge(customer.getAge(), 1);
+        nameOffsets[row] = append(utf8(customer.getName()));
+        nameLengths[row] = arenaSize - nameOffsets[row];
+        emailOffsets[row] = append(email);
+        emailLengths[row] = email.length;
+        liveRows++;
+        indexEmail(row);
+        return Optional.of(id);
+    }
+
+    // callers hold the write lock
+    private boolean remove(Integer id) {
+        int row = rowOf(id);
+        if (row < 0) {
+            return false;
+        }
+        countAge(ages[row], -1);
+        ages[row] = DELETED;
+        deadArenaBytes += nameLengths[row] + emailLengths[row];
+        liveRows--;
+        return true;
+    }
+
+    // callers hold the write lock and compact afterwards, as compaction moves rows; null strings are left as they are
+    private void update(int row, byte[] name, byte[] email, int age) {
+        boolean changed = false;
+        if (name != null && !equalsArena(name, nameOffsets[row], nameLengths[row])) {
+            deadArenaBytes += nameLengths[row];
+            nameOffsets[row] = append(name);
+            nameLengths[row] = name.length;
+            changed = true;
+        }
+        if (email != null && !equalsArena(email, emailOffsets[row], emailLengths[row])) {
+            deadArenaBytes += emailLengths[row];
+            emailOffsets[row] = append(email);
+            emailLengths[row] = email.length;
+            indexEmail(row);
+            changed = true;
+        }
+        if (ages[row] != age) {
+            countAge(ages[row], -1);
+            countAge(age, 1);
+            ages[row] = age;
+            changed = true;
+        }
+        if (changed) {
+            versions[row]++;
+        }
+    }
+
+    private void countAge(int age, long delta) {
+        customersPerAge.merge(age, delta, (customers, change) -> customers + change == 0 ? null : customers + change);
+    }
+
+    private int rowOf(int id) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        return row >= 0 && ages[row] != DELETED ? row : -1;
+    }
+
+    private int firstRowAfter(int id) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        return row >= 0 ? row + 1 : -(row + 1);
+    }
+
+    private int emailRow(byte[] email) {
+        int mask = emailSlots.length - 1;
+        for (int slot = hash(email) & mask; ; slot = (slot + 1) & mask) {
+            int entry = emailSlots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int row = entry - 1;
+            if (ages[row] != DELETED && equalsArena(email, emailOffsets[row], emailLengths[row])) {
+                return row;
+            }
+        }
+    }
+
+    // callers hold the write lock
+    private void indexEmail(int row) {
+        if ((usedEmailSlots + 1) * 2 > emailSlots.length) {
+            // the rehash already picks up the row with its current email
+            rehashEmails(Math.max(emailSlots.length, Integer.highestOneBit(Math.max(liveRows, 1)) * 4));
+            return;
+        }
+        putEmailSlot(row);
+        usedEmailSlots++;
+    }
+
+    private void putEmailSlot(int row) {
+        int mask = emailSlots.length - 1;
+        int slot = hash(arena, emailOffsets[row], emailLengths[row]) & mask;
+        while (emailSlots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        emailSlots[slot] = row + 1;
+    }
+
+    private void rehashEmails(int slots) {
+        emailSlots = new int[slots];
+        usedEmailSlots = 0;
+        for (int row = 0; row < rows; row++) {
+            if (ages[row] != DELETED) {
+                putEmailSlot(row);
+                usedEmailSlots++;
+            }
+        }
+    }
+
+    private void growRows() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+        emailOffsets = Arrays.copyOf(emailOffsets, capacity);
+        emailLengths = Arrays.copyOf(emailLengths, capacity);
+    }
+
+    private int append(byte[] bytes) {
+        if (arena.length - arenaSize < bytes.length) {
+            long needed = (long) arenaSize + bytes.length;
+            if (needed > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Customer string arena is full");
+            }
+            arena = Arrays.copyOf(arena, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, arena.length * 2L)));
+        }
+        int offset = arenaSize;
+        System.arraycopy(bytes, 0, arena, offset, bytes.length);
+        arenaSize += bytes.length;
+        return offset;
+    }
+
+    // callers hold the write lock; keeps row order, so the id column stays sorted
+    private void compactIfSparse() {
+        boolean sparseRows = rows > INITIAL_ROWS && liveRows < rows / 2;
+        boolean sparseArena = arenaSize > INITIAL_ROWS * 32 && deadArenaBytes > arenaSize / 2;
+        if (!sparseRows && !sparseArena) {
+            return;
+        }
+        byte[] compacted = new byte[Math.max(INITIAL_ROWS * 32, (arenaSize - deadArenaBytes) * 2)];
+        int compactedSize = 0;
+        int live = 0;
+        for (int row = 0; row < rows; row++) {
+            if (ages[row] == DELETED) {
+                continue;
+            }
+            ids[live] = ids[row];
+            ages[live] = ages[row];
+            versions[live] = versions[row];
+            System.arraycopy(arena, nameOffsets[row], compacted, compactedSize, nameLengths[row]);
+            nameOffsets[live] = compactedSize;
+            nameLengths[live] = nameLengths[row];
+            compactedSize += nameLengths[row];
+            System.arraycopy(arena, emailOffsets[row], compacted, compactedSize, emailLengths[row]);
+            emailOffsets[live] = compactedSize;
+            emailLengths[live] = emailLengths[row];
+            compactedSize += emailLengths[row];
+            live++;
+        }
+        rows = live;
+        arena = compacted;
+        arenaSize = compactedSize;
+        deadArenaBytes = 0;
+        rehashEmails(Math.max(INITIAL_ROWS * 2, Integer.highestOneBit(Math.max(live, 1)) * 4));
+    }
+
+    private Customer customerAt(int row) {
+        return new Customer(
+                ids[row],
+                new String(arena, nameOffsets[row], nameLengths[row], StandardCharsets.UTF_8),
+                new String(arena, emailOffsets[row], emailLengths[row], StandardCharsets.UTF_8),
+                ages[row],
+                versions[row]
+        );
+    }
+
+    private boolean equalsArena(byte[] bytes, int offset, int length) {
+        return Arrays.equals(bytes, 0, bytes.length, arena, offset, offset + length);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int hash(byte[] bytes) {
+        return hash(bytes, 0, bytes.length);
+    }
+
+    // FNV-1a with a murmur finaliser, so the low bits used for the slot are well mixed
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            h ^= bytes[i];
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -1,34 +1,147 @@
 package com.example.customer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Set;
 
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
 
 @RestController
+@Profile("!reactive")
 public class CustomerController {
     private final CustomerService customerService;
+    private final CustomerPageCache customerPageCache;
+    private final ObjectWriter customerWriter;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService,
+                              CustomerPageCache customerPageCache,
+                              ObjectMapper objectMapper) {
         this.customerService = customerService;
+        this.customerPageCache = customerPageCache;
+        this.customerWriter = objectMapper.writerFor(Customer.class);
     }
 
+    /**
+     * Answers 304 without a body when {@code If-None-Match} carries the page's ETag; a null return
+     * tells Spring the response is already complete. {@code fields} is a comma-separated list of
+     * {@link CustomerField}s to return; the others are neither read nor written.
+     */
     @RequestMapping(
             value = { "/customers", "/customers/" },
             method = GET)
-    public List<Customer> getCustomers(@RequestParam(value = "age", required = false) Integer age) {
-        return age == null ? customerService.getAllCustomers() : customerService.getCustomersByAge(age);
+    public CustomerPage getCustomers(@RequestParam(value = "age", required = false) Integer age,
+                                     @RequestParam(value = "minAge", required = false) Integer minAge,
+                                     @RequestParam(value = "maxAge", required = false) Integer maxAge,
+                                     @RequestParam(value = "after", required = false) String after,
+                                     @RequestParam(value = "limit", required = false) Integer limit,
+                                     @RequestParam(value = "fields", required = false) String fields,
+                                     WebRequest request) {
+        Set<CustomerField> customerFields = CustomerField.parse(fields);
+        CustomerPage page = customerService.getCustomers(age, minAge, maxAge, after, limit, customerFields);
+        if (request.checkNotModified(CustomerETags.of(page, customerFields))) {
+            return null;
+        }
+        return page;
+    }
+
+    /**
+     * The exact-age pages, written from {@link CustomerPageCache} as they are: gzipped when the page
+     * has a gzipped copy and the client accepts it, plain JSON otherwise.
+     */
+    @GetMapping(
+            value = { "/customers", "/customers/" },
+            params = { "age", "!minAge", "!maxAge" })
+    public ResponseEntity<byte[]> getCustomersByAge(@RequestParam("age") Integer age,
+                                                    @RequestParam(value = "after", required = false) String after,
+                                                    @RequestParam(value = "limit", required = false) Integer limit,
+                                                    @RequestParam(value = "fields", required = false) String fields,
+                                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                    WebRequest request) {
+        Set<CustomerField> customerFields = CustomerField.parse(fields);
+        CustomerPageCache.EncodedPage page = customerPageCache.get(age, after, limit, customerFields,
+                () -> customerService.getCustomers(age, null, null, after, limit, customerFields));
+        boolean gzip = page.gzip() != null && acceptsGzip(acceptEncoding);
+        if (request.checkNotModified(gzip ? page.gzipETag() : page.eTag())) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? page.gzip() : page.json());
+    }
+
+    @GetMapping(value = "/customers/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCustomers() {
+        StreamingResponseBody body = out -> customerService.forEachCustomer(customer -> writeLine(out, customer));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/customers/search")
+    public List<Customer> searchCustomers(@RequestParam("q") String query,
+                                          @RequestParam(value = "limit", required = false) Integer limit) {
+        return customerService.searchCustomers(query, limit);
+    }
+
+    @GetMapping("/customers/stats")
+    public CustomerStats getCustomerStats() {
+        return customerService.getCustomerStats();
     }
 
     @PostMapping("/customers")
-    public void addCustomer(@RequestBody CustomerRegistrationRequest request) {
-        customerService.addCustomer(request);
+    public ResponseEntity<Void> addCustomer(@RequestBody CustomerRegistrationRequest request) {
+        Integer id = customerService.addCustomer(request);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{customerId}")
+                .buildAndExpand(id)
+                .toUri();
+        return ResponseEntity.ok().location(location).build();
+    }
+
+    @PostMapping(value = "/customers/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkRegistrationResult addCustomers(@RequestBody List<CustomerRegistrationRequest> requests) {
+        return customerService.addCustomers(requests);
+    }
+
+    @PostMapping(value = "/customers/bulk", consumes = "text/csv")
+    public BulkRegistrationResult addCustomersFromCsv(Reader body) throws IOException {
+        return customerService.addCustomers(CustomerCsvReader.read(body));
     }
 
     @GetMapping("/customers/{customerId}")
-    public Customer getCustomerById(@PathVariable("customerId") Integer customerId) {
-        return customerService.getCustomerById(customerId);
+    public Customer getCustomerById(@PathVariable("customerId") Integer customerId,
+                                    @RequestParam(value = "fields", required = false) String fields,
+                                    WebRequest request) {
+        Set<CustomerField> customerFields = CustomerField.parse(fields);
+        Customer customer = customerService.getCustomerById(customerId, customerFields);
+        if (request.checkNotModified(CustomerETags.of(customer, customerFields))) {
+            return null;
+        }
+        return customer;
+    }
+
+    @DeleteMapping(value = "/customers", params = "ids")
+    public BulkRemovalResult removeCustomers(@RequestParam("ids") List<Integer> ids) {
+        return customerService.removeCustomersByIds(ids);
     }
 
     @DeleteMapping("/customers/{customerId}")
@@ -37,7 +150,39 @@ public class CustomerController {
     }
 
     @PostMapping("/customers/{customerId}")
-    public void updateCustomerById(@PathVariable("customerId") Integer customerId, @RequestBody CustomerUpdateRequest request) {
-        customerService.updateCustomerById(customerId, request);
+    public Customer updateCustomerById(@PathVariable("customerId") Integer customerId, @RequestBody CustomerUpdateRequest request) {
+        return customerService.updateCustomerById(customerId, request);
+    }
+
+    /**
+     * An explicit {@code gzip} coding wins over {@code *}; either is refused with {@code q=0}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            boolean refused = parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            if (name.equalsIgnoreCase("gzip")) {
+                return !refused;
+            }
+            if (name.equals("*")) {
+                wildcard = !refused;
+            }
+        }
+        return wildcard;
+    }
+
+    private void writeLine(OutputStream out, Customer customer) {
+        try {
+            out.write(customerWriter.writeValueAsBytes(customer));
+            out.write('\n');
+        } catch (IOException e) {
+            // aborts the database read as well, e.g. when the client went away
+            throw new UncheckedIOException(e);
+        }
     }
 }
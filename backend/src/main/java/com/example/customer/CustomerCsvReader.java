@@ -0,0 +1,102 @@
+package com.example.customer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads {@code name,email,age} records (RFC 4180 quoting, optional header line) into registration requests.
+ * Missing or unparsable values become null so that validation can report them per row.
+ */
+final class CustomerCsvReader {
+    private static final List<String> HEADER = List.of("name", "email", "age");
+
+    private CustomerCsvReader() {
+    }
+
+    static List<CustomerRegistrationRequest> read(Reader reader) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        List<CustomerRegistrationRequest> requests = new ArrayList<>();
+        boolean firstRecord = true;
+        List<String> fields;
+        while ((fields = readRecord(in)) != null) {
+            if (firstRecord) {
+                firstRecord = false;
+                if (isHeader(fields)) {
+                    continue;
+                }
+            }
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            requests.add(new CustomerRegistrationRequest(
+                    field(fields, 0),
+                    field(fields, 1),
+                    parseAge(field(fields, 2))
+            ));
+        }
+        return requests;
+    }
+
+    private static List<String> readRecord(BufferedReader in) throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>(HEADER.size());
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    if (in.read() == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        in.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static boolean isHeader(List<String> fields) {
+        return fields.size() == HEADER.size()
+                && fields.stream().map(f -> f.trim().toLowerCase()).toList().equals(HEADER);
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index >= fields.size() || fields.get(index).isBlank()) {
+            return null;
+        }
+        return fields.get(index).trim();
+    }
+
+    private static Integer parseAge(String age) {
+        if (age == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(age);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.customer;
+
+import com.example.exception.InvalidPageRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination. It wraps the id of the last customer of a page
+ * so clients cannot (and should not) build it themselves.
+ */
+final class CustomerCursor {
+    private static final String PREFIX = "id:";
+
+    private CustomerCursor() {
+    }
+
+    static String encode(int lastId) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the id to continue after, or 0 (before the first id) when no cursor is given
+     */
+    static int decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return Integer.parseInt(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException("Cursor [%s] is invalid".formatted(cursor));
+        }
+    }
+}
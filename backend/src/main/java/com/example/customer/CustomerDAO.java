@@ -1,14 +1,140 @@
 package com.example.customer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Consumer;
 
 public interface CustomerDAO {
     List<Customer> selectAllCustomers();
     List<Customer> selectCustomerByAge(Integer age);
+    List<Customer> selectCustomerPage(int afterId, int limit);
+    List<Customer> selectCustomerPageByAge(Integer age, int afterId, int limit);
+
+    /**
+     * Keyset page, in id order, of the customers aged {@code minAge} to {@code maxAge} inclusive.
+     */
+    List<Customer> selectCustomerPageByAgeRange(int minAge, int maxAge, int afterId, int limit);
     Optional<Customer> selectCustomerById(Integer id);
+
+    /**
+     * Like {@link #selectCustomerPage(int, int)}, reading only {@code fields} (and the version); the
+     * other properties of the returned customers are null. The defaults read whole customers and
+     * narrow them afterwards, for implementations that cannot narrow the read itself.
+     */
+    default List<Customer> selectCustomerFieldsPage(int afterId, int limit, Set<CustomerField> fields) {
+        return project(selectCustomerPage(afterId, limit), fields);
+    }
+
+    /**
+     * @see #selectCustomerFieldsPage(int, int, Set)
+     */
+    default List<Customer> selectCustomerFieldsPageByAge(Integer age, int afterId, int limit, Set<CustomerField> fields) {
+        return project(selectCustomerPageByAge(age, afterId, limit), fields);
+    }
+
+    /**
+     * @see #selectCustomerFieldsPage(int, int, Set)
+     */
+    default List<Customer> selectCustomerFieldsPageByAgeRange(int minAge, int maxAge, int afterId, int limit,
+                                                              Set<CustomerField> fields) {
+        return project(selectCustomerPageByAgeRange(minAge, maxAge, afterId, limit), fields);
+    }
+
+    /**
+     * @see #selectCustomerFieldsPage(int, int, Set)
+     */
+    default Optional<Customer> selectCustomerFieldsById(Integer id, Set<CustomerField> fields) {
+        return selectCustomerById(id).map(customer -> CustomerField.project(customer, fields));
+    }
     void insertCustomer(Customer customer);
-    void removeCustomerById(Integer id);
+
+    /**
+     * Inserts the customer unless its email is taken, atomically and in one statement.
+     *
+     * @return the id of the new customer, or empty when the email is taken
+     */
+    Optional<Integer> insertCustomerIfEmailFree(Customer customer);
+
+    /**
+     * Inserts every customer whose email is not taken yet, in one batch.
+     *
+     * @return the emails that were skipped because a customer already has them
+     */
+    Set<String> insertCustomers(List<Customer> customers);
+
+    /**
+     * @return whether a customer with this id existed and was removed
+     */
+    boolean removeCustomerById(Integer id);
+
+    /**
+     * Removes every customer whose id is in {@code ids} in one statement; unknown ids are ignored.
+     *
+     * @return the number of customers removed
+     */
+    int removeCustomersByIds(Collection<Integer> ids);
     void updateCustomer(Customer customer);
+
+    /**
+     * Applies the non-null fields of {@code update} in one statement, writing only the columns that change.
+     */
+    CustomerUpdateResult updateCustomerById(Integer id, CustomerUpdateRequest update);
     boolean existsCustomerWithEmail(String email);
+
+    /**
+     * Customers per age, by ascending age, without ages that have none. Read from counters kept up to
+     * date on every write, so the cost does not grow with the number of customers.
+     */
+    SortedMap<Integer, Long> countCustomersByAge();
+
+    /**
+     * Recounts the customers per age from the customers themselves and corrects counters that drifted.
+     *
+     * @return the number of ages whose counter was corrected
+     */
+    int reconcileCustomerCountsByAge();
+
+    /**
+     * Hands every customer, in id order, to {@code action} without holding the whole table in memory.
+     * The default walks the keyset pages; implementations backed by a database cursor should override it.
+     */
+    default void forEachCustomer(Consumer<Customer> action) {
+        int pageSize = 1000;
+        int afterId = 0;
+        List<Customer> page;
+        do {
+            page = selectCustomerPage(afterId, pageSize);
+            page.forEach(action);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize);
+    }
+
+    /**
+     * Hands every customer email to {@code action} without holding them all in memory.
+     */
+    default void forEachCustomerEmail(Consumer<String> action) {
+        forEachCustomer(customer -> action.accept(customer.getEmail()));
+    }
+
+    /**
+     * Customers whose name or email contains {@code term} or is similar to it, best matches first; see
+     * {@link CustomerSearch} for the matching and the ranking every implementation follows. The default
+     * checks every customer.
+     */
+    default List<Customer> searchCustomers(String term, int limit) {
+        CustomerSearch search = new CustomerSearch(term, limit);
+        forEachCustomer(search::offer);
+        return search.results();
+    }
+
+    private static List<Customer> project(List<Customer> customers, Set<CustomerField> fields) {
+        return fields.equals(CustomerField.ALL)
+                ? customers
+                : customers.stream().map(customer -> CustomerField.project(customer, fields)).toList();
+    }
 }
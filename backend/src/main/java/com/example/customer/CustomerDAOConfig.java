@@ -0,0 +1,104 @@
+package com.example.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Assembles the {@link CustomerDAO} used by {@link CustomerService}: the configured implementation
+ * wrapped in the enabled decorators.
+ */
+@Configuration
+@EnableConfigurationProperties(CustomerProperties.class)
+public class CustomerDAOConfig {
+
+    @Bean
+    public StatementLog statementLog(CustomerProperties properties) {
+        CustomerProperties.StatementLog statementLog = properties.statementLog();
+        return new StatementLog(statementLog.slowThreshold(), statementLog.sampleRate());
+    }
+
+    @Bean
+    public CustomerPageCache customerPageCache(CustomerProperties properties,
+                                               ObjectMapper objectMapper,
+                                               MeterRegistry meterRegistry) {
+        CustomerProperties.PageCache pageCache = properties.pageCache();
+        CustomerPageCache customerPageCache = new CustomerPageCache(
+                objectMapper,
+                pageCache.enabled(),
+                pageCache.maximumSize().toBytes(),
+                pageCache.expireAfterWrite(),
+                pageCache.gzip()
+        );
+        customerPageCache.bindTo(meterRegistry);
+        return customerPageCache;
+    }
+
+    /**
+     * The configured implementation, timed when metrics are enabled. The timers sit innermost, so they
+     * measure the implementation itself rather than cache or filter hits. A bean of its own so the
+     * email filter and {@link #customerDAO} share one proxy and the timers are registered once; without
+     * metrics it is the implementation bean itself, whose lifecycle stays with its own definition.
+     */
+    @Bean(destroyMethod = "")
+    public CustomerDAO customerDAOImplementation(BeanFactory beanFactory,
+                                                 CustomerProperties properties,
+                                                 MeterRegistry meterRegistry) {
+        String implementation = properties.dao().implementation();
+        CustomerDAO customerDAO = beanFactory.getBean(implementation, CustomerDAO.class);
+        if (!properties.metrics().enabled()) {
+            return customerDAO;
+        }
+        return TimedCustomerDAO.wrap(customerDAO, implementation, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "customer.email-filter.enabled", havingValue = "true")
+    public CustomerEmailFilter customerEmailFilter(@Qualifier("customerDAOImplementation") CustomerDAO implementation,
+                                                   CustomerProperties properties,
+                                                   MeterRegistry meterRegistry) {
+        CustomerProperties.EmailFilter emailFilter = properties.emailFilter();
+        CustomerEmailFilter customerEmailFilter = new CustomerEmailFilter(
+                implementation,
+                emailFilter.expectedInsertions(),
+                emailFilter.falsePositiveRate(),
+                emailFilter.maxStaleRatio()
+        );
+        customerEmailFilter.bindTo(meterRegistry);
+        return customerEmailFilter;
+    }
+
+    @Bean
+    public CustomerDAO customerDAO(@Qualifier("customerDAOImplementation") CustomerDAO implementation,
+                                   CustomerProperties properties,
+                                   ObjectProvider<CustomerEmailFilter> customerEmailFilter,
+                                   CustomerPageCache customerPageCache,
+                                   MeterRegistry meterRegistry) {
+        CustomerDAO customerDAO = implementation;
+
+        CustomerEmailFilter emailFilter = customerEmailFilter.getIfAvailable();
+        if (emailFilter != null) {
+            customerDAO = new EmailFilteringCustomerDAO(customerDAO, emailFilter);
+        }
+
+        CustomerProperties.Cache cache = properties.cache();
+        if (cache.enabled()) {
+            CachingCustomerDAO cachingCustomerDAO = new CachingCustomerDAO(
+                    customerDAO, cache.maximumSize().toBytes(), cache.expireAfterWrite()
+            );
+            cachingCustomerDAO.bindTo(meterRegistry);
+            customerDAO = cachingCustomerDAO;
+        }
+
+        if (properties.pageCache().enabled()) {
+            customerDAO = new PageCacheInvalidatingCustomerDAO(customerDAO, customerPageCache);
+        }
+        return customerDAO;
+    }
+}
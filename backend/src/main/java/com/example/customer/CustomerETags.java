@@ -0,0 +1,64 @@
+package com.example.customer;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Strong ETags for the customer resources, built from ids and row versions rather than from the
+ * serialized body, so a matching {@code If-None-Match} is answered before any JSON is written.
+ */
+final class CustomerETags {
+
+    private CustomerETags() {
+    }
+
+    static String of(Customer customer) {
+        return "\"" + customer.getId() + "-" + customer.getVersion() + "\"";
+    }
+
+    /**
+     * A body with fewer fields is another representation, so narrowed reads name their fields in the tag.
+     */
+    static String of(Customer customer, Set<CustomerField> fields) {
+        return withFields(of(customer), fields);
+    }
+
+    /**
+     * Hashes the id and version of every customer on the page, in order, and whether there is a next
+     * page; the cursor itself is derived from the last id.
+     */
+    static String of(CustomerPage page) {
+        long hash = page.nextCursor() == null ? 0 : 1;
+        for (Customer customer : page.customers()) {
+            hash = mix(hash, customer.getId());
+            hash = mix(hash, customer.getVersion());
+        }
+        return "\"p" + page.customers().size() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * @see #of(Customer, Set)
+     */
+    static String of(CustomerPage page, Set<CustomerField> fields) {
+        return withFields(of(page), fields);
+    }
+
+    private static String withFields(String eTag, Set<CustomerField> fields) {
+        if (fields.equals(CustomerField.ALL)) {
+            return eTag;
+        }
+        String names = fields.stream()
+                .map(field -> field.name().toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining(","));
+        return eTag.substring(0, eTag.length() - 1) + ";" + names + "\"";
+    }
+
+    // SplitMix64's finalizer over the running hash plus the next value
+    private static long mix(long hash, long value) {
+        long z = hash + value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
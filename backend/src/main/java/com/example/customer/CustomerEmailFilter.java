@@ -0,0 +1,214 @@
+package com.example.customer;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process Bloom filter of every customer email, so that "is this email taken?" can be answered
+ * "definitely not" without a database round trip.
+ * <p>
+ * The filter is built by streaming the email column and afterwards only grows: emails that are
+ * removed or replaced cannot be taken out of a Bloom filter, they are counted as stale instead.
+ * The filter is rebuilt once stale emails exceed {@code maxStaleRatio} of the insertions or it is
+ * fuller than it was sized for. Until the first build finishes every email "might" be taken.
+ * <p>
+ * Emails are lower-cased, as the list DAO compares them, so no casing of a taken email can be
+ * answered "definitely not". Writers call {@link #add(String)} before the write and
+ * {@link #addCompleted(String)} after it; the table scan of a rebuild can miss a write that commits
+ * while it runs, so the new filter also takes the emails added during the rebuild, including the ones
+ * completing, and those of the writes still in flight when it is swapped in. Those are only put when
+ * the new filter does not have them yet, so each write counts once towards the insertions. Swapping
+ * excludes adds, so no add lands only in the filter being replaced.
+ */
+public class CustomerEmailFilter implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(CustomerEmailFilter.class);
+
+    private final CustomerDAO customerDAO;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final double maxStaleRatio;
+
+    private volatile StringBloomFilter current;
+    // receives concurrent additions while a rebuild streams the table
+    private volatile StringBloomFilter building;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong staleEmails = new AtomicLong();
+    // emails of the writes between add and addCompleted, with how many writes each
+    private final Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+    // adds share the read lock; swapping in a rebuilt filter takes the write lock
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder positives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public CustomerEmailFilter(CustomerDAO customerDAO,
+                               long expectedInsertions,
+                               double falsePositiveRate,
+                               double maxStaleRatio) {
+        this.customerDAO = customerDAO;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxStaleRatio = maxStaleRatio;
+    }
+
+    public boolean mightContain(String email) {
+        StringBloomFilter filter = current;
+        if (filter == null) {
+            return true;
+        }
+        boolean mightContain = filter.mightContain(normalize(email));
+        (mightContain ? positives : negatives).increment();
+        return mightContain;
+    }
+
+    /**
+     * Adds the email of a write about to run; the write must call {@link #addCompleted(String)} once it
+     * returned or failed.
+     */
+    public void add(String email) {
+        String normalized = normalize(email);
+        swapLock.readLock().lock();
+        try {
+            inFlight.merge(normalized, 1, Integer::sum);
+            put(normalized);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the email to the filter being rebuilt once its write committed (or failed), for a rebuild
+     * whose scan started before the commit. The filter in use already took it in {@link #add(String)}.
+     */
+    public void addCompleted(String email) {
+        String normalized = normalize(email);
+        swapLock.readLock().lock();
+        try {
+            StringBloomFilter next = building;
+            if (next != null) {
+                putIfAbsent(next, normalized);
+            }
+            inFlight.computeIfPresent(normalized, (key, writes) -> writes == 1 ? null : writes - 1);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void put(String normalized) {
+        StringBloomFilter filter = current;
+        if (filter != null) {
+            filter.put(normalized);
+        }
+        StringBloomFilter next = building;
+        if (next != null) {
+            next.put(normalized);
+        }
+    }
+
+    // counts the email once when add, the scan or a completing write already put it
+    private static void putIfAbsent(StringBloomFilter filter, String normalized) {
+        if (!filter.mightContain(normalized)) {
+            filter.put(normalized);
+        }
+    }
+
+    /**
+     * Records that an email may have left the table (a customer was removed or changed email).
+     */
+    public void markStale() {
+        markStale(1);
+    }
+
+    public void markStale(long count) {
+        staleEmails.addAndGet(count);
+    }
+
+    /**
+     * Records that the database did not have an email the filter claimed it might have.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${customer.email-filter.rebuild-check-interval:PT1M}")
+    public void rebuildIfDegraded() {
+        StringBloomFilter filter = current;
+        if (filter == null
+                || staleEmails.get() > filter.insertions() * maxStaleRatio
+                || filter.insertions() > filter.expectedInsertions()) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            StringBloomFilter previous = current;
+            long expected = previous == null
+                    ? expectedInsertions
+                    : Math.max(expectedInsertions, 2 * (previous.insertions() - staleEmails.get()));
+            StringBloomFilter next = new StringBloomFilter(expected, falsePositiveRate);
+            long staleBeforeRebuild = staleEmails.get();
+            building = next;
+            customerDAO.forEachCustomerEmail(email -> next.put(normalize(email)));
+            swapLock.writeLock().lock();
+            try {
+                // writes that may commit after the scan read past them
+                inFlight.keySet().forEach(email -> putIfAbsent(next, email));
+                current = next;
+                building = null;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            staleEmails.addAndGet(-staleBeforeRebuild);
+            log.info("Built customer email filter: {} emails, {} bytes", next.insertions(), next.sizeInBytes());
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild the customer email filter, keeping the previous one", e);
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("customer.email.filter.size", this, f -> f.current == null ? 0 : f.current.sizeInBytes())
+                .description("Heap taken by the customer email Bloom filter")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("customer.email.filter.emails", this, f -> f.current == null ? 0 : f.current.insertions())
+                .description("Emails added to the customer email Bloom filter")
+                .register(registry);
+        FunctionCounter.builder("customer.email.filter.checks", negatives, LongAdder::sum)
+                .description("Email checks answered by the filter without a database round trip")
+                .tag("result", "negative")
+                .register(registry);
+        FunctionCounter.builder("customer.email.filter.checks", positives, LongAdder::sum)
+                .description("Email checks that had to go to the database")
+                .tag("result", "positive")
+                .register(registry);
+        FunctionCounter.builder("customer.email.filter.false.positives", falsePositives, LongAdder::sum)
+                .register(registry);
+    }
+}
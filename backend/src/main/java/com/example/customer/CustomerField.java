@@ -0,0 +1,78 @@
+package com.example.customer;
+
+import com.example.exception.InvalidFieldsException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The customer properties a client can ask for with {@code fields=}. Each maps to a column of the
+ * same name, which is also the JPA attribute. The id is always read: it identifies the customer and
+ * is the page cursor.
+ */
+public enum CustomerField {
+    ID("id"),
+    NAME("name"),
+    EMAIL("email"),
+    AGE("age");
+
+    public static final Set<CustomerField> ALL = Collections.unmodifiableSet(EnumSet.allOf(CustomerField.class));
+
+    private final String column;
+
+    CustomerField(String column) {
+        this.column = column;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    /**
+     * @param fields comma-separated field names, case-insensitive; null or blank for all fields
+     * @throws InvalidFieldsException if a name is not a customer field
+     */
+    static Set<CustomerField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        EnumSet<CustomerField> parsed = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                parsed.add(valueOf(trimmed.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidFieldsException("Field [%s] is not a customer field".formatted(trimmed));
+            }
+        }
+        return parsed.size() == ALL.size() ? ALL : Collections.unmodifiableSet(parsed);
+    }
+
+    /**
+     * A copy of {@code customer} holding only the id, the version and {@code fields}; the customer
+     * itself when all fields are requested.
+     */
+    static Customer project(Customer customer, Set<CustomerField> fields) {
+        if (fields.equals(ALL)) {
+            return customer;
+        }
+        Customer projected = new Customer();
+        projected.setId(customer.getId());
+        if (fields.contains(NAME)) {
+            projected.setName(customer.getName());
+        }
+        if (fields.contains(EMAIL)) {
+            projected.setEmail(customer.getEmail());
+        }
+        if (fields.contains(AGE)) {
+            projected.setAge(customer.getAge());
+        }
+        projected.setVersion(customer.getVersion());
+        return projected;
+    }
+}
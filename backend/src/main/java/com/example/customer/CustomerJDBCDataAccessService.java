@@ -1,29 +1,75 @@
 package com.example.customer;
 
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository("jdbc")
 public class CustomerJDBCDataAccessService implements CustomerDAO {
+    // rows the driver pulls per round trip while a cursor is open
+    static final int STREAM_FETCH_SIZE = 500;
+    static final int BULK_BATCH_SIZE = 1000;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    static final String RECONCILE_AGE_COUNTS_SQL = """
+            WITH actual AS (
+                SELECT age, count(*) AS customers FROM customer GROUP BY age
+            ), drift AS (
+                SELECT coalesce(a.age, c.age) AS age, coalesce(a.customers, 0) - coalesce(c.customers, 0) AS delta
+                FROM actual a
+                FULL JOIN customer_age_count c ON c.age = a.age
+                WHERE coalesce(a.customers, 0) <> coalesce(c.customers, 0)
+            )
+            INSERT INTO customer_age_count (age, customers)
+            SELECT age, delta FROM drift
+            ON CONFLICT (age) DO UPDATE SET customers = customer_age_count.customers + EXCLUDED.customers
+            """;
 
     private final JdbcTemplate jdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
+    private final StatementLog statementLog;
 
-    public CustomerJDBCDataAccessService(JdbcTemplate jdbcTemplate, CustomerRowMapper customerRowMapper) {
+    public CustomerJDBCDataAccessService(JdbcTemplate jdbcTemplate,
+                                         CustomerRowMapper customerRowMapper,
+                                         StatementLog statementLog) {
         this.jdbcTemplate = jdbcTemplate;
         this.customerRowMapper = customerRowMapper;
+        this.statementLog = statementLog;
     }
 
     @Override
     public List<Customer> selectAllCustomers() {
         var sql = """
-                SELECT id, name, email, age FROM customer;
+                SELECT id, name, email, age, version FROM customer;
                 """;
 
         return jdbcTemplate.query(sql, customerRowMapper);
@@ -32,24 +78,118 @@ public class CustomerJDBCDataAccessService implements CustomerDAO {
     @Override
     public List<Customer> selectCustomerByAge(Integer age) {
         var sql = """
-                SELECT id, name, email, age FROM customer
+                SELECT id, name, email, age, version FROM customer
                 WHERE age = ?;
                 """;
 
         return jdbcTemplate.query(sql, customerRowMapper, age);
     }
 
+    @Override
+    public List<Customer> selectCustomerPage(int afterId, int limit) {
+        return selectCustomerFieldsPage(afterId, limit, CustomerField.ALL);
+    }
+
+    @Override
+    public List<Customer> selectCustomerPageByAge(Integer age, int afterId, int limit) {
+        return selectCustomerFieldsPageByAge(age, afterId, limit, CustomerField.ALL);
+    }
+
+    @Override
+    public List<Customer> selectCustomerPageByAgeRange(int minAge, int maxAge, int afterId, int limit) {
+        return selectCustomerFieldsPageByAgeRange(minAge, maxAge, afterId, limit, CustomerField.ALL);
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Integer id) {
+        return selectCustomerFieldsById(id, CustomerField.ALL);
+    }
+
+    @Override
+    public List<Customer> selectCustomerFieldsPage(int afterId, int limit, Set<CustomerField> fields) {
+        var sql = """
+                SELECT %s FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?;
+                """.formatted(columns(fields));
+
+        return jdbcTemplate.query(sql, customerRowMapper.forFields(fields), afterId, limit);
+    }
+
+    @Override
+    public List<Customer> selectCustomerFieldsPageByAge(Integer age, int afterId, int limit, Set<CustomerField> fields) {
+        var sql = """
+                SELECT %s FROM customer
+                WHERE age = ? AND id > ?
+                ORDER BY id
+                LIMIT ?;
+                """.formatted(columns(fields));
+
+        return jdbcTemplate.query(sql, customerRowMapper.forFields(fields), age, afterId, limit);
+    }
+
+    @Override
+    public List<Customer> selectCustomerFieldsPageByAgeRange(int minAge, int maxAge, int afterId, int limit,
+                                                             Set<CustomerField> fields) {
+        var sql = """
+                SELECT %s FROM customer
+                WHERE age BETWEEN ? AND ? AND id > ?
+                ORDER BY id
+                LIMIT ?;
+                """.formatted(columns(fields));
+
+        return jdbcTemplate.query(sql, customerRowMapper.forFields(fields), minAge, maxAge, afterId, limit);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerFieldsById(Integer id, Set<CustomerField> fields) {
         var sql = """
-                SELECT id, name, email, age FROM customer
+                SELECT %s FROM customer
                 WHERE id = ?
-                """;
-        return jdbcTemplate.query(sql, customerRowMapper, id)
+                """.formatted(columns(fields));
+        return jdbcTemplate.query(sql, customerRowMapper.forFields(fields), id)
                 .stream()
                 .findFirst();
     }
 
+    /**
+     * Both predicates and the similarity are served by the pg_trgm GIN indexes on name and email.
+     */
+    @Override
+    public List<Customer> searchCustomers(String term, int limit) {
+        var sql = """
+                SELECT id, name, email, age, version FROM customer
+                WHERE name ILIKE ? OR email ILIKE ? OR name % ? OR email % ?
+                ORDER BY (name ILIKE ? OR email ILIKE ?) DESC,
+                         greatest(similarity(name, ?), similarity(email, ?)) DESC,
+                         id
+                LIMIT ?
+                """;
+        String contains = "%" + CustomerSearch.escapeLike(term) + "%";
+        String prefix = CustomerSearch.escapeLike(term) + "%";
+        return jdbcTemplate.query(sql, customerRowMapper,
+                contains, contains, term, term,
+                prefix, prefix,
+                term, term,
+                limit);
+    }
+
+    /**
+     * The id, the requested columns and the version the ETags are built from, in table order; the
+     * names come from {@link CustomerField}, never from the request.
+     */
+    private static String columns(Set<CustomerField> fields) {
+        StringJoiner columns = new StringJoiner(", ");
+        columns.add(CustomerField.ID.column());
+        for (CustomerField field : fields) {
+            if (field != CustomerField.ID) {
+                columns.add(field.column());
+            }
+        }
+        return columns.add("version").toString();
+    }
+
     @Override
     public void insertCustomer(Customer customer) {
         var sql = """
@@ -57,41 +197,265 @@ public class CustomerJDBCDataAccessService implements CustomerDAO {
                 VALUES (?, ?, ?)
                 """;
 
+        long start = System.nanoTime();
         int updated = jdbcTemplate.update(
                 sql,
                 customer.getName(),
                 customer.getEmail(),
                 customer.getAge()
         );
-        System.out.println("Rows inserted: " + updated);
+        statementLog.record("insertCustomer", start, updated);
+    }
+
+    @Override
+    public Optional<Integer> insertCustomerIfEmailFree(Customer customer) {
+        var sql = """
+                INSERT INTO customer(name, email, age)
+                VALUES (?, ?, ?)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id
+                """;
+
+        long start = System.nanoTime();
+        Optional<Integer> id = jdbcTemplate.query(
+                        sql,
+                        (rs, rowNum) -> rs.getInt("id"),
+                        customer.getName(),
+                        customer.getEmail(),
+                        customer.getAge()
+                )
+                .stream()
+                .findFirst();
+        statementLog.record("insertCustomerIfEmailFree", start, id.isPresent() ? 1 : 0);
+        return id;
+    }
+
+    /**
+     * COPYs the batch into a session-local staging table and moves it over with a single
+     * {@code INSERT ... ON CONFLICT DO NOTHING}, so taken emails are skipped instead of failing the batch.
+     * Falls back to JDBC batching when the connection is not a PostgreSQL one.
+     */
+    @Override
+    public Set<String> insertCustomers(List<Customer> customers) {
+        if (customers.isEmpty()) {
+            return Set.of();
+        }
+        long start = System.nanoTime();
+        Set<String> inserted = jdbcTemplate.execute((ConnectionCallback<Set<String>>) con ->
+                con.isWrapperFor(PGConnection.class) ? copyCustomers(con, customers) : null
+        );
+        if (inserted == null) {
+            Set<String> taken = batchInsertCustomers(customers);
+            statementLog.record("insertCustomers.batch", start, customers.size() - taken.size());
+            return taken;
+        }
+        statementLog.record("insertCustomers.copy", start, inserted.size());
+        Set<String> taken = new HashSet<>();
+        for (Customer customer : customers) {
+            if (!inserted.contains(customer.getEmail())) {
+                taken.add(customer.getEmail());
+            }
+        }
+        return taken;
+    }
+
+    private Set<String> copyCustomers(Connection con, List<Customer> customers) throws SQLException {
+        try (Statement statement = con.createStatement()) {
+            statement.execute("CREATE TEMPORARY TABLE customer_import (name TEXT, email TEXT, age INT)");
+        }
+        try {
+            var copySql = """
+                    COPY customer_import (name, email, age) FROM STDIN WITH (FORMAT csv)
+                    """;
+            PGConnection pgConnection = con.unwrap(PGConnection.class);
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new PGCopyOutputStream(pgConnection, copySql, COPY_BUFFER_SIZE), StandardCharsets.UTF_8))) {
+                for (Customer customer : customers) {
+                    writeCsvField(writer, customer.getName());
+                    writer.write(',');
+                    writeCsvField(writer, customer.getEmail());
+                    writer.write(',');
+                    writer.write(Integer.toString(customer.getAge()));
+                    writer.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            var insertSql = """
+                    INSERT INTO customer(name, email, age)
+                    SELECT name, email, age FROM customer_import
+                    ON CONFLICT (email) DO NOTHING
+                    RETURNING email
+                    """;
+            Set<String> inserted = new HashSet<>();
+            try (Statement statement = con.createStatement();
+                 var rs = statement.executeQuery(insertSql)) {
+                while (rs.next()) {
+                    inserted.add(rs.getString(1));
+                }
+            }
+            return inserted;
+        } finally {
+            try (Statement statement = con.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS customer_import");
+            }
+        }
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private Set<String> batchInsertCustomers(List<Customer> customers) {
+        var sql = """
+                INSERT INTO customer(name, email, age)
+                VALUES (?, ?, ?)
+                ON CONFLICT (email) DO NOTHING
+                """;
+
+        int[][] updated = jdbcTemplate.batchUpdate(sql, customers, BULK_BATCH_SIZE, (ps, customer) -> {
+            ps.setString(1, customer.getName());
+            ps.setString(2, customer.getEmail());
+            ps.setInt(3, customer.getAge());
+        });
+        Set<String> taken = new HashSet<>();
+        int row = 0;
+        for (int[] batch : updated) {
+            for (int count : batch) {
+                if (count == 0) {
+                    taken.add(customers.get(row).getEmail());
+                }
+                row++;
+            }
+        }
+        return taken;
     }
 
     @Override
-    public void removeCustomerById(Integer id) {
+    public boolean removeCustomerById(Integer id) {
         var sql = """
                 DELETE FROM customer WHERE id = ?
                 """;
 
-        int deleted = jdbcTemplate.update(sql, id);
-        System.out.println("Rows deleted: " + deleted);
+        long start = System.nanoTime();
+        int removed = jdbcTemplate.update(sql, id);
+        statementLog.record("removeCustomerById", start, removed);
+        return removed > 0;
     }
 
+    @Override
+    public int removeCustomersByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        var sql = """
+                DELETE FROM customer WHERE id = ANY(?)
+                """;
+
+        // one array parameter keeps the statement (and its plan) the same for any number of ids
+        long start = System.nanoTime();
+        int removed = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("integer", ids.toArray()));
+            return ps;
+        });
+        statementLog.record("removeCustomersByIds", start, removed);
+        return removed;
+    }
+
+    /**
+     * Writing back the same values leaves the row, and so its version, as it is.
+     */
     @Override
     public void updateCustomer(Customer customer) {
         var sql = """
                 UPDATE customer
-                SET name = ?, email = ?, age = ?
-                WHERE id = ?
+                SET name = ?, email = ?, age = ?, version = version + 1
+                WHERE id = ? AND (name, email, age) IS DISTINCT FROM (?, ?, ?)
                 """;
 
+        long start = System.nanoTime();
         int updated = jdbcTemplate.update(
                 sql,
                 customer.getName(),
                 customer.getEmail(),
                 customer.getAge(),
-                customer.getId()
+                customer.getId(),
+                customer.getName(),
+                customer.getEmail(),
+                customer.getAge()
         );
-        System.out.println("Rows updated: " + updated);
+        statementLog.record("updateCustomer", start, updated);
+    }
+
+    /**
+     * The UPDATE only matches when one of the given columns actually changes, and the outer join
+     * against the id lookup tells "no such customer" (no row) from "nothing changed" (null columns).
+     * A taken email surfaces as a violation of customer_email_unique.
+     */
+    @Override
+    public CustomerUpdateResult updateCustomerById(Integer id, CustomerUpdateRequest update) {
+        List<String> assignments = new ArrayList<>(3);
+        List<String> changes = new ArrayList<>(3);
+        List<Object> values = new ArrayList<>(3);
+        if (update.name() != null) {
+            assignments.add("name = ?");
+            changes.add("name IS DISTINCT FROM ?");
+            values.add(update.name());
+        }
+        if (update.email() != null) {
+            assignments.add("email = ?");
+            changes.add("email IS DISTINCT FROM ?");
+            values.add(update.email());
+        }
+        if (update.age() != null) {
+            assignments.add("age = ?");
+            changes.add("age IS DISTINCT FROM ?");
+            values.add(update.age());
+        }
+        if (assignments.isEmpty()) {
+            throw new IllegalArgumentException("Update request for customer [%s] has no fields".formatted(id));
+        }
+
+        var sql = """
+                WITH target AS (
+                    SELECT id FROM customer WHERE id = ?
+                ), updated AS (
+                    UPDATE customer
+                    SET %s, version = version + 1
+                    WHERE id = ? AND (%s)
+                    RETURNING id, name, email, age, version
+                )
+                SELECT updated.id, updated.name, updated.email, updated.age, updated.version
+                FROM target LEFT JOIN updated ON true
+                """.formatted(String.join(", ", assignments), String.join(" OR ", changes));
+
+        List<Object> args = new ArrayList<>(2 + 2 * values.size());
+        args.add(id);
+        args.addAll(values);
+        args.add(id);
+        args.addAll(values);
+
+        long start = System.nanoTime();
+        try {
+            List<Customer> rows = jdbcTemplate.query(
+                    sql,
+                    (rs, rowNum) -> rs.getObject("id") == null ? null : customerRowMapper.mapRow(rs, rowNum),
+                    args.toArray()
+            );
+            Customer updated = rows.isEmpty() ? null : rows.get(0);
+            statementLog.record("updateCustomerById", start, updated == null ? 0 : 1);
+            if (rows.isEmpty()) {
+                return CustomerUpdateResult.notFound();
+            }
+            return updated == null ? CustomerUpdateResult.unchanged() : CustomerUpdateResult.updated(updated);
+        } catch (DuplicateKeyException e) {
+            statementLog.record("updateCustomerById", start, 0);
+            return CustomerUpdateResult.emailTaken();
+        }
     }
 
     @Override
@@ -103,4 +467,72 @@ public class CustomerJDBCDataAccessService implements CustomerDAO {
         Integer count = jdbcTemplate.queryForObject(sql, Integer.class, email);
         return count != null && count > 0;
     }
+
+    /**
+     * Reads customer_age_count, which triggers on customer keep in step (V5).
+     */
+    @Override
+    public SortedMap<Integer, Long> countCustomersByAge() {
+        var sql = """
+                SELECT age, customers FROM customer_age_count
+                WHERE customers > 0
+                ORDER BY age;
+                """;
+
+        SortedMap<Integer, Long> counts = new TreeMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(rs.getInt("age"), rs.getLong("customers"));
+        });
+        return counts;
+    }
+
+    /**
+     * Compares and corrects in one statement, so both sides are read from the same snapshot. The
+     * correction is added to the counter rather than written over it, which keeps changes committed
+     * after that snapshot.
+     */
+    @Override
+    public int reconcileCustomerCountsByAge() {
+        long start = System.nanoTime();
+        int corrected = jdbcTemplate.update(RECONCILE_AGE_COUNTS_SQL);
+        statementLog.record("reconcileCustomerCountsByAge", start, corrected);
+        return corrected;
+    }
+
+    /**
+     * Reads through a server-side cursor: PgJDBC only honours the fetch size when auto-commit is off,
+     * hence the read-only transaction. A slow consumer simply delays the next fetch.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachCustomer(Consumer<Customer> action) {
+        var sql = """
+                SELECT id, name, email, age, version FROM customer
+                ORDER BY id
+                """;
+
+        try (Stream<Customer> customers = jdbcTemplate.queryForStream(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, customerRowMapper)) {
+            customers.forEach(action);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachCustomerEmail(Consumer<String> action) {
+        var sql = """
+                SELECT email FROM customer
+                """;
+
+        try (Stream<String> emails = jdbcTemplate.queryForStream(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (rs, rowNum) -> rs.getString("email"))) {
+            emails.forEach(action);
+        }
+    }
 }
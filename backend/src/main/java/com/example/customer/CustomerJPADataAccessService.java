@@ -1,12 +1,25 @@
 package com.example.customer;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 @Repository("jpa")
 public class CustomerJPADataAccessService implements CustomerDAO{
+    // keeps the IN list well below PostgreSQL's bind parameter limit
+    static final int EMAIL_LOOKUP_CHUNK_SIZE = 1000;
+    // JPQL expands IN to one bind parameter per id
+    static final int ID_CHUNK_SIZE = 1000;
+
     private final CustomerRepository customerRepository;
 
     public CustomerJPADataAccessService(CustomerRepository customerRepository) {
@@ -23,19 +36,121 @@ public class CustomerJPADataAccessService implements CustomerDAO{
         return customerRepository.findByAge(age);
     }
 
+    @Override
+    public List<Customer> selectCustomerPage(int afterId, int limit) {
+        return customerRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(limit));
+    }
+
+    @Override
+    public List<Customer> selectCustomerPageByAge(Integer age, int afterId, int limit) {
+        return customerRepository.findByAgeAndIdGreaterThanOrderByIdAsc(age, afterId, PageRequest.ofSize(limit));
+    }
+
+    @Override
+    public List<Customer> selectCustomerPageByAgeRange(int minAge, int maxAge, int afterId, int limit) {
+        return customerRepository.findByAgeBetweenAndIdGreaterThanOrderByIdAsc(
+                minAge, maxAge, afterId, PageRequest.ofSize(limit)
+        );
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Integer id) {
         return customerRepository.findById(id);
     }
 
+    @Override
+    public List<Customer> searchCustomers(String term, int limit) {
+        String escaped = CustomerSearch.escapeLike(term);
+        return customerRepository.searchByNameOrEmail(term, "%" + escaped + "%", escaped + "%", limit);
+    }
+
+    @Override
+    public List<Customer> selectCustomerFieldsPage(int afterId, int limit, Set<CustomerField> fields) {
+        return fields.equals(CustomerField.ALL)
+                ? selectCustomerPage(afterId, limit)
+                : customerRepository.findFieldsPage(null, null, afterId, limit, fields);
+    }
+
+    @Override
+    public List<Customer> selectCustomerFieldsPageByAge(Integer age, int afterId, int limit, Set<CustomerField> fields) {
+        return fields.equals(CustomerField.ALL)
+                ? selectCustomerPageByAge(age, afterId, limit)
+                : customerRepository.findFieldsPage(age, age, afterId, limit, fields);
+    }
+
+    @Override
+    public List<Customer> selectCustomerFieldsPageByAgeRange(int minAge, int maxAge, int afterId, int limit,
+                                                             Set<CustomerField> fields) {
+        return fields.equals(CustomerField.ALL)
+                ? selectCustomerPageByAgeRange(minAge, maxAge, afterId, limit)
+                : customerRepository.findFieldsPage(minAge, maxAge, afterId, limit, fields);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerFieldsById(Integer id, Set<CustomerField> fields) {
+        return fields.equals(CustomerField.ALL)
+                ? selectCustomerById(id)
+                : customerRepository.findFieldsById(id, fields);
+    }
+
     @Override
     public void insertCustomer(Customer customer) {
         customerRepository.save(customer);
     }
 
     @Override
-    public void removeCustomerById(Integer id) {
-        customerRepository.deleteById(id);
+    public Optional<Integer> insertCustomerIfEmailFree(Customer customer) {
+        return customerRepository.insertIfEmailFree(customer.getName(), customer.getEmail(), customer.getAge());
+    }
+
+    /**
+     * Skips the emails already taken and saves the rest as one batched transaction. An email registered
+     * concurrently after the lookup fails that transaction on the unique constraint; the batch is then
+     * inserted row by row with {@code ON CONFLICT DO NOTHING}, so the race costs one failed row, not
+     * the import. Not transactional itself, so the fallback runs after the failed batch rolled back.
+     */
+    @Override
+    public Set<String> insertCustomers(List<Customer> customers) {
+        Set<String> taken = new HashSet<>();
+        for (int from = 0; from < customers.size(); from += EMAIL_LOOKUP_CHUNK_SIZE) {
+            List<String> emails = customers.subList(from, Math.min(from + EMAIL_LOOKUP_CHUNK_SIZE, customers.size()))
+                    .stream()
+                    .map(Customer::getEmail)
+                    .toList();
+            taken.addAll(customerRepository.findExistingEmails(emails));
+        }
+        List<Customer> fresh = customers.stream().filter(c -> !taken.contains(c.getEmail())).toList();
+        try {
+            customerRepository.saveAll(fresh);
+        } catch (DataIntegrityViolationException e) {
+            for (Customer customer : fresh) {
+                Optional<Integer> id = insertCustomerIfEmailFree(customer);
+                // the rolled-back batch may have assigned an id already
+                customer.setId(id.orElse(null));
+                if (id.isEmpty()) {
+                    taken.add(customer.getEmail());
+                }
+            }
+        }
+        return taken;
+    }
+
+    @Override
+    public boolean removeCustomerById(Integer id) {
+        return customerRepository.deleteCustomerById(id) > 0;
+    }
+
+    @Override
+    @Transactional
+    public int removeCustomersByIds(Collection<Integer> ids) {
+        List<Integer> distinctIds = List.copyOf(new HashSet<>(ids));
+        int removed = 0;
+        for (int from = 0; from < distinctIds.size(); from += ID_CHUNK_SIZE) {
+            removed += customerRepository.deleteCustomersByIdIn(
+                    distinctIds.subList(from, Math.min(from + ID_CHUNK_SIZE, distinctIds.size()))
+            );
+        }
+        return removed;
     }
 
     @Override
@@ -43,8 +158,61 @@ public class CustomerJPADataAccessService implements CustomerDAO{
         customerRepository.save(customer);
     }
 
+    /**
+     * Hibernate writes only the dirty columns ({@code @DynamicUpdate}), but JPA has no conditional
+     * UPDATE ... RETURNING, so this path still loads the entity and checks the email first. The check
+     * only short-cuts the common case: a registration racing it is caught by the unique constraint
+     * when the save is flushed. Not {@code @Transactional} for the same reason as
+     * {@link #insertCustomers}: the detached entity is merged in the repository's own transaction,
+     * so a violation rolls back only that save and can be answered as {@code EMAIL_TAKEN}.
+     */
+    @Override
+    public CustomerUpdateResult updateCustomerById(Integer id, CustomerUpdateRequest update) {
+        Optional<Customer> found = customerRepository.findById(id);
+        if (found.isEmpty()) {
+            return CustomerUpdateResult.notFound();
+        }
+        Customer customer = found.get();
+        boolean changed = false;
+        if (update.email() != null && !update.email().equals(customer.getEmail())) {
+            if (customerRepository.existsCustomerByEmail(update.email())) {
+                return CustomerUpdateResult.emailTaken();
+            }
+            customer.setEmail(update.email());
+            changed = true;
+        }
+        if (update.name() != null && !update.name().equals(customer.getName())) {
+            customer.setName(update.name());
+            changed = true;
+        }
+        if (update.age() != null && !update.age().equals(customer.getAge())) {
+            customer.setAge(update.age());
+            changed = true;
+        }
+        if (!changed) {
+            return CustomerUpdateResult.unchanged();
+        }
+        try {
+            return CustomerUpdateResult.updated(customerRepository.saveAndFlush(customer));
+        } catch (DataIntegrityViolationException e) {
+            return CustomerUpdateResult.emailTaken();
+        }
+    }
+
     @Override
     public boolean existsCustomerWithEmail(String email) {
         return customerRepository.existsCustomerByEmail(email);
     }
+
+    @Override
+    public SortedMap<Integer, Long> countCustomersByAge() {
+        SortedMap<Integer, Long> counts = new TreeMap<>();
+        customerRepository.countCustomersByAge().forEach(c -> counts.put(c.getAge(), c.getCustomers()));
+        return counts;
+    }
+
+    @Override
+    public int reconcileCustomerCountsByAge() {
+        return customerRepository.reconcileCustomerCountsByAge();
+    }
 }
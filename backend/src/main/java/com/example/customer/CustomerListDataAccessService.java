@@ -1,65 +1,335 @@
 package com.example.customer;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
+/**
+ * In-memory customers for edge/demo nodes and fast tests.
+ * <p>
+ * Rows live in a map by id, with secondary indexes by lower-cased email, (sorted) by age and by the
+ * trigrams search uses. Writers are serialised so the structures change together; readers never
+ * lock and go through the id map, re-checking the row against the index they came from, so a read
+ * racing a write sees either the old or the new row but never a mix. Stored rows are never mutated:
+ * updates replace them, and callers get copies.
+ */
 @Repository("list")
-public class CustomerListDataAccessService implements CustomerDAO{
-    private static List<Customer> customers;
-
-    static {
-        customers = new ArrayList<>();
-        customers.add(new Customer(1, "Tony", "tony@gmail.com", 30));
-        customers.add(new Customer(2, "Ivy", "ivy@gmail.com", 34));
-        customers.add(new Customer(3, "Loi", "loi@gmail.com", 34));
-    }
-
+public class CustomerListDataAccessService implements CustomerDAO {
+    private final ConcurrentSkipListMap<Integer, Customer> customersById = new ConcurrentSkipListMap<>();
+    private final Map<String, Integer> idsByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, NavigableSet<Integer>> idsByAge = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Long> customersPerAge = new ConcurrentSkipListMap<>();
+    private final CustomerSearchIndex searchIndex = new CustomerSearchIndex();
+    private final AtomicInteger lastId = new AtomicInteger();
 
     public CustomerListDataAccessService() {
+        insertCustomer(new Customer("Tony", "tony@gmail.com", 30));
+        insertCustomer(new Customer("Ivy", "ivy@gmail.com", 34));
+        insertCustomer(new Customer("Loi", "loi@gmail.com", 34));
     }
 
     @Override
     public List<Customer> selectAllCustomers() {
-        return customers;
+        return copiesOf(customersById.values());
     }
 
     @Override
     public List<Customer> selectCustomerByAge(Integer age) {
-        return customers.stream().filter(c -> age.equals(c.getAge())).collect(Collectors.toList());
+        return selectCustomerPageByAge(age, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Customer> selectCustomerPage(int afterId, int limit) {
+        List<Customer> page = new ArrayList<>(Math.min(limit, 1024));
+        for (Customer customer : customersById.tailMap(afterId, false).values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(copyOf(customer));
+        }
+        return page;
+    }
+
+    @Override
+    public List<Customer> selectCustomerPageByAge(Integer age, int afterId, int limit) {
+        NavigableSet<Integer> ids = idsByAge.get(age);
+        if (ids == null) {
+            return List.of();
+        }
+        List<Customer> page = new ArrayList<>();
+        for (Integer id : ids.tailSet(afterId, false)) {
+            if (page.size() == limit) {
+                break;
+            }
+            Customer customer = customersById.get(id);
+            if (customer != null && age.equals(customer.getAge())) {
+                page.add(copyOf(customer));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Finds the ages in the sorted age index in log time, then merges their id sets so the page
+     * follows id order like the other DAOs.
+     */
+    @Override
+    public List<Customer> selectCustomerPageByAgeRange(int minAge, int maxAge, int afterId, int limit) {
+        if (minAge > maxAge) {
+            return List.of();
+        }
+        PriorityQueue<IdCursor> cursors = new PriorityQueue<>(Comparator.comparingInt(IdCursor::id));
+        for (NavigableSet<Integer> ids : idsByAge.subMap(minAge, true, maxAge, true).values()) {
+            IdCursor.first(ids.tailSet(afterId, false).iterator()).ifPresent(cursors::add);
+        }
+        List<Customer> page = new ArrayList<>();
+        while (page.size() < limit && !cursors.isEmpty()) {
+            IdCursor cursor = cursors.poll();
+            Customer customer = customersById.get(cursor.id());
+            if (customer != null && customer.getAge() >= minAge && customer.getAge() <= maxAge) {
+                page.add(copyOf(customer));
+            }
+            IdCursor.first(cursor.rest()).ifPresent(cursors::add);
+        }
+        return page;
     }
 
     @Override
     public Optional<Customer> selectCustomerById(Integer id) {
-        return customers.stream().filter(c -> id.equals(c.getId())).findFirst();
+        return Optional.ofNullable(customersById.get(id)).map(CustomerListDataAccessService::copyOf);
     }
 
+    /**
+     * Checks only the customers the trigram index lists, or all of them for terms under three
+     * characters.
+     */
     @Override
-    public void insertCustomer(Customer customer) {
-        customers.add(customer);
+    public List<Customer> searchCustomers(String term, int limit) {
+        CustomerSearch search = new CustomerSearch(term, limit);
+        Optional<Set<Integer>> candidates = searchIndex.candidates(search);
+        if (candidates.isEmpty()) {
+            customersById.values().forEach(search::offer);
+        } else {
+            for (Integer id : candidates.get()) {
+                Customer customer = customersById.get(id);
+                if (customer != null) {
+                    search.offer(customer);
+                }
+            }
+        }
+        return copiesOf(search.results());
     }
 
+    /**
+     * The id is always generated; an id already set on {@code customer} is ignored.
+     *
+     * @throws DuplicateKeyException if the email is taken, as the unique constraint does for the
+     *                               database DAOs
+     */
     @Override
-    public void removeCustomerById(Integer id) {
-        customers.removeIf(c -> c.getId().equals(id));
+    public synchronized void insertCustomer(Customer customer) {
+        if (insertCustomerIfEmailFree(customer).isEmpty()) {
+            throw new DuplicateKeyException("Email [%s] is taken".formatted(customer.getEmail()));
+        }
     }
 
     @Override
-    public void updateCustomer(Customer customer) {
-        selectCustomerById(customer.getId()).ifPresent(c -> mergeCustomer(customer, c));
+    public synchronized Optional<Integer> insertCustomerIfEmailFree(Customer customer) {
+        if (existsCustomerWithEmail(customer.getEmail())) {
+            return Optional.empty();
+        }
+        int id = lastId.incrementAndGet();
+        index(new Customer(id, customer.getName(), customer.getEmail(), customer.getAge()));
+        return Optional.of(id);
     }
 
-    private void mergeCustomer(Customer from, Customer to) {
-        to.setName(from.getName());
-        to.setEmail(from.getEmail());
-        to.setAge(from.getAge());
+    @Override
+    public synchronized Set<String> insertCustomers(List<Customer> newCustomers) {
+        Set<String> taken = new HashSet<>();
+        for (Customer customer : newCustomers) {
+            if (insertCustomerIfEmailFree(customer).isEmpty()) {
+                taken.add(customer.getEmail());
+            }
+        }
+        return taken;
     }
 
+    @Override
+    public synchronized boolean removeCustomerById(Integer id) {
+        Customer removed = customersById.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        unindex(removed);
+        return true;
+    }
+
+    @Override
+    public synchronized int removeCustomersByIds(Collection<Integer> ids) {
+        int removed = 0;
+        for (Integer id : new HashSet<>(ids)) {
+            if (removeCustomerById(id)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized void updateCustomer(Customer customer) {
+        Customer current = customersById.get(customer.getId());
+        if (current == null) {
+            return;
+        }
+        if (isTakenByOther(customer.getEmail(), current.getId())) {
+            throw new DuplicateKeyException("Email [%s] is taken".formatted(customer.getEmail()));
+        }
+        if (Objects.equals(customer.getName(), current.getName())
+                && Objects.equals(customer.getEmail(), current.getEmail())
+                && Objects.equals(customer.getAge(), current.getAge())) {
+            return;
+        }
+        replace(current, new Customer(
+                current.getId(), customer.getName(), customer.getEmail(), customer.getAge(), current.getVersion() + 1));
+    }
+
+    @Override
+    public synchronized CustomerUpdateResult updateCustomerById(Integer id, CustomerUpdateRequest update) {
+        Customer current = customersById.get(id);
+        if (current == null) {
+            return CustomerUpdateResult.notFound();
+        }
+        String name = update.name() != null ? update.name() : current.getName();
+        String email = update.email() != null ? update.email() : current.getEmail();
+        Integer age = update.age() != null ? update.age() : current.getAge();
+        if (name.equals(current.getName()) && email.equals(current.getEmail()) && age.equals(current.getAge())) {
+            return CustomerUpdateResult.unchanged();
+        }
+        if (isTakenByOther(email, id)) {
+            return CustomerUpdateResult.emailTaken();
+        }
+        Customer updated = new Customer(id, name, email, age, current.getVersion() + 1);
+        replace(current, updated);
+        return CustomerUpdateResult.updated(copyOf(updated));
+    }
+
+    /**
+     * Emails are matched case-insensitively.
+     */
     @Override
     public boolean existsCustomerWithEmail(String email) {
-        return customers.stream().anyMatch(c -> c.getEmail().equals(email));
+        return email != null && idsByEmail.containsKey(normalize(email));
+    }
+
+    @Override
+    public SortedMap<Integer, Long> countCustomersByAge() {
+        return new TreeMap<>(customersPerAge);
+    }
+
+    @Override
+    public synchronized int reconcileCustomerCountsByAge() {
+        Map<Integer, Long> actual = new HashMap<>();
+        customersById.values().forEach(customer -> actual.merge(customer.getAge(), 1L, Long::sum));
+        Set<Integer> ages = new HashSet<>(actual.keySet());
+        ages.addAll(customersPerAge.keySet());
+        int corrected = 0;
+        for (Integer age : ages) {
+            Long customers = actual.get(age);
+            if (!Objects.equals(customers, customersPerAge.get(age))) {
+                if (customers == null) {
+                    customersPerAge.remove(age);
+                } else {
+                    customersPerAge.put(age, customers);
+                }
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        customersById.values().forEach(customer -> action.accept(copyOf(customer)));
+    }
+
+    @Override
+    public void forEachCustomerEmail(Consumer<String> action) {
+        customersById.values().forEach(customer -> action.accept(customer.getEmail()));
+    }
+
+    private boolean isTakenByOther(String email, Integer id) {
+        Integer owner = idsByEmail.get(normalize(email));
+        return owner != null && !owner.equals(id);
+    }
+
+    // callers hold the lock
+    private void index(Customer customer) {
+        idsByEmail.put(normalize(customer.getEmail()), customer.getId());
+        idsByAge.computeIfAbsent(customer.getAge(), age -> new ConcurrentSkipListSet<>()).add(customer.getId());
+        customersPerAge.merge(customer.getAge(), 1L, Long::sum);
+        searchIndex.add(customer);
+        customersById.put(customer.getId(), customer);
+    }
+
+    // callers hold the lock
+    private void unindex(Customer customer) {
+        idsByEmail.remove(normalize(customer.getEmail()), customer.getId());
+        NavigableSet<Integer> ids = idsByAge.get(customer.getAge());
+        if (ids != null) {
+            ids.remove(customer.getId());
+            if (ids.isEmpty()) {
+                idsByAge.remove(customer.getAge());
+            }
+        }
+        customersPerAge.computeIfPresent(customer.getAge(), (age, customers) -> customers == 1 ? null : customers - 1);
+        searchIndex.remove(customer);
+    }
+
+    // callers hold the lock
+    private void replace(Customer current, Customer updated) {
+        unindex(current);
+        index(updated);
+    }
+
+    private record IdCursor(int id, Iterator<Integer> rest) {
+        static Optional<IdCursor> first(Iterator<Integer> ids) {
+            return ids.hasNext() ? Optional.of(new IdCursor(ids.next(), ids)) : Optional.empty();
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<Customer> copiesOf(Collection<Customer> customers) {
+        List<Customer> copies = new ArrayList<>(customers.size());
+        customers.forEach(customer -> copies.add(copyOf(customer)));
+        return copies;
+    }
+
+    private static Customer copyOf(Customer customer) {
+        return new Customer(
+                customer.getId(), customer.getName(), customer.getEmail(), customer.getAge(), customer.getVersion());
     }
 }
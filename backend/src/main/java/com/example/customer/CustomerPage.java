@@ -0,0 +1,23 @@
+package com.example.customer;
+
+import java.util.List;
+
+/**
+ * One keyset page of customers ordered by id. {@code nextCursor} is null on the last page.
+ */
+public record CustomerPage(
+        List<Customer> customers,
+        String nextCursor
+) {
+    /**
+     * Builds a page from a query that fetched one row more than {@code pageSize}:
+     * the extra row only tells us there is a next page and is not returned.
+     */
+    static CustomerPage of(List<Customer> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new CustomerPage(rows, null);
+        }
+        List<Customer> customers = rows.subList(0, pageSize);
+        return new CustomerPage(customers, CustomerCursor.encode(customers.get(pageSize - 1).getId()));
+    }
+}
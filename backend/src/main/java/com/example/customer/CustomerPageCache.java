@@ -0,0 +1,242 @@
+package com.example.customer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoded {@code GET /customers?age=} pages: the JSON bytes the client receives and, for larger
+ * pages, a gzipped copy, per requested set of {@link CustomerField}s. A hit writes a byte array
+ * without running the query or Jackson.
+ * <p>
+ * Entries are weighed by their bytes (JSON, gzip copy, the listed ids and their index entries), so
+ * {@code maximumSize} bounds the memory the cache takes. {@link PageCacheInvalidatingCustomerDAO}
+ * drops entries precisely: a new customer drops the pages of its age; an update or removal drops
+ * the pages that list the customer, and an update also drops the pages of its new age. The keys are
+ * indexed by age and by listed customer, so an invalidation touches only the entries it drops.
+ * Every invalidation first stamps its age or customers with a tick of a shared clock, and a page
+ * whose age or rows were stamped while it loaded is served but not kept, so a load racing a write
+ * cannot cache the old rows while loads of unrelated pages still are. Customers share
+ * {@value #CUSTOMER_STAMP_STRIPES} stamps, so a write rarely discards an unrelated page loaded at
+ * the same time. Concurrent misses of one key each run the query rather than wait for each other.
+ * <p>
+ * Only the rows of a page are tracked: removing the row just after a page can leave that page with
+ * a next cursor that leads to an empty page, until the entry expires.
+ */
+public class CustomerPageCache implements MeterBinder {
+    // below this the gzip header and the extra work outweigh the bytes saved
+    static final int MIN_GZIP_BYTES = 1024;
+    // keys, entry, arrays headers and the ETag strings
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+    // the node of a listed customer's index entry, and its share of the index map
+    private static final int INDEX_ENTRY_BYTES = 64;
+    static final int CUSTOMER_STAMP_STRIPES = 1024;
+
+    private final ObjectWriter pageWriter;
+    private final boolean gzip;
+    // null when caching is disabled: pages are then encoded on every call
+    private final Cache<Key, EncodedPage> cache;
+    // the cached keys per age and per listed customer; each index entry is only guarded by its own
+    // compute
+    private final Map<Integer, Map<Key, EncodedPage>> keysByAge = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<Key, EncodedPage>> keysByCustomer = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    // clock tick of the last invalidation of each age, and of each stripe of customer ids
+    private final Map<Integer, Long> ageStamps = new ConcurrentHashMap<>();
+    private final AtomicLongArray customerStamps = new AtomicLongArray(CUSTOMER_STAMP_STRIPES);
+
+    public CustomerPageCache(ObjectMapper objectMapper,
+                             boolean enabled,
+                             long maximumSizeInBytes,
+                             Duration expireAfterWrite,
+                             boolean gzip) {
+        this.pageWriter = objectMapper.writerFor(CustomerPage.class);
+        this.gzip = gzip;
+        this.cache = !enabled ? null : Caffeine.newBuilder()
+                .maximumWeight(maximumSizeInBytes)
+                .weigher((Key key, EncodedPage page) -> page.weight())
+                .expireAfterWrite(expireAfterWrite)
+                .removalListener((Key key, EncodedPage page, RemovalCause cause) -> unindex(key, page))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param loader reads the page from the database on a miss
+     * @throws com.example.exception.InvalidPageRequestException if the cursor or limit is invalid
+     */
+    EncodedPage get(int age, String after, Integer limit, Set<CustomerField> fields, Supplier<CustomerPage> loader) {
+        Key key = new Key(age, CustomerCursor.decode(after), CustomerService.resolvePageSize(limit), fields);
+        if (cache == null) {
+            return encode(loader.get(), fields);
+        }
+        EncodedPage cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedAt = clock.get();
+        EncodedPage page = encode(loader.get(), fields);
+        index(key, page);
+        cache.put(key, page);
+        // a write stamped after the load began may have looked up the index before this entry was
+        // in it
+        if (stampedSince(loadedAt, age, page.ids())) {
+            cache.invalidate(key);
+        }
+        return page;
+    }
+
+    void invalidateAge(Integer age) {
+        if (cache != null && age != null) {
+            ageStamps.merge(age, clock.incrementAndGet(), Math::max);
+            invalidate(keysByAge.remove(age));
+        }
+    }
+
+    void invalidateCustomers(Collection<Integer> ids) {
+        if (cache == null) {
+            return;
+        }
+        long tick = clock.incrementAndGet();
+        for (Integer id : ids) {
+            if (id != null) {
+                customerStamps.accumulateAndGet(stripe(id), tick, Math::max);
+                invalidate(keysByCustomer.remove(id));
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (cache == null) {
+            return;
+        }
+        CaffeineCacheMetrics.monitor(registry, cache, "customer-pages");
+        Gauge.builder("cache.weight", cache, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .tag("cache", "customer-pages")
+                .baseUnit(BaseUnits.BYTES)
+                .description("Encoded bytes held by the cache")
+                .register(registry);
+    }
+
+    private boolean stampedSince(long tick, int age, int[] ids) {
+        if (ageStamps.getOrDefault(age, 0L) > tick) {
+            return true;
+        }
+        for (int id : ids) {
+            if (customerStamps.get(stripe(id)) > tick) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void invalidate(Map<Key, EncodedPage> keys) {
+        if (keys != null) {
+            cache.invalidateAll(keys.keySet());
+        }
+    }
+
+    private void index(Key key, EncodedPage page) {
+        index(keysByAge, key.age(), key, page);
+        for (int id : page.ids()) {
+            index(keysByCustomer, id, key, page);
+        }
+    }
+
+    // a page replaced under the same key stays indexed: only the entry for this exact page is
+    // dropped
+    private void unindex(Key key, EncodedPage page) {
+        if (key == null || page == null) {
+            return;
+        }
+        unindex(keysByAge, key.age(), key, page);
+        for (int id : page.ids()) {
+            unindex(keysByCustomer, id, key, page);
+        }
+    }
+
+    private static void index(Map<Integer, Map<Key, EncodedPage>> index, int value, Key key, EncodedPage page) {
+        index.compute(value, (v, keys) -> {
+            Map<Key, EncodedPage> indexed = keys == null ? new HashMap<>() : keys;
+            indexed.put(key, page);
+            return indexed;
+        });
+    }
+
+    private static void unindex(Map<Integer, Map<Key, EncodedPage>> index, int value, Key key, EncodedPage page) {
+        index.computeIfPresent(value, (v, keys) -> {
+            keys.remove(key, page);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static int stripe(int id) {
+        return id & (CUSTOMER_STAMP_STRIPES - 1);
+    }
+
+    private EncodedPage encode(CustomerPage page, Set<CustomerField> fields) {
+        byte[] json;
+        try {
+            json = pageWriter.writeValueAsBytes(page);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] gzipped = gzip && json.length >= MIN_GZIP_BYTES ? gzip(json) : null;
+        int[] ids = page.customers().stream().mapToInt(Customer::getId).toArray();
+        return new EncodedPage(json, gzipped, CustomerETags.of(page, fields), ids);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private record Key(int age, int afterId, int pageSize, Set<CustomerField> fields) {
+    }
+
+    /**
+     * @param gzip the gzipped JSON, or null when the page is too small to be worth compressing
+     * @param ids the customers on the page, ascending like the page itself
+     */
+    record EncodedPage(byte[] json, byte[] gzip, String eTag, int[] ids) {
+
+        /**
+         * The gzipped bytes are another representation, so they get their own strong ETag.
+         */
+        String gzipETag() {
+            return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+        }
+
+        private int weight() {
+            return ENTRY_OVERHEAD_BYTES + json.length + (gzip == null ? 0 : gzip.length) + ids.length * (Integer.BYTES + INDEX_ENTRY_BYTES);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.customer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads of a subset of the customer fields. Spring Data projections are fixed per method, so these
+ * build the select list from the {@link CustomerField}s; see {@link CustomerProjectionRepositoryImpl}.
+ */
+public interface CustomerProjectionRepository {
+
+    /**
+     * Customers with an id above {@code afterId}, in id order, optionally limited to an age range.
+     *
+     * @param minAge null for no lower bound
+     * @param maxAge null for no upper bound
+     */
+    List<Customer> findFieldsPage(Integer minAge, Integer maxAge, int afterId, int limit, Set<CustomerField> fields);
+
+    Optional<Customer> findFieldsById(Integer id, Set<CustomerField> fields);
+}
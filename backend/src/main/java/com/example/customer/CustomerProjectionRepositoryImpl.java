@@ -0,0 +1,81 @@
+package com.example.customer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Selects the id, the version and the requested attributes as scalars, so Hibernate reads only those
+ * columns and does not manage the results; the customers returned are detached copies with the other
+ * fields left null.
+ */
+class CustomerProjectionRepositoryImpl implements CustomerProjectionRepository {
+    private final EntityManager entityManager;
+
+    CustomerProjectionRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Customer> findFieldsPage(Integer minAge, Integer maxAge, int afterId, int limit,
+                                         Set<CustomerField> fields) {
+        StringBuilder jpql = new StringBuilder(select(fields)).append(" WHERE c.id > :afterId");
+        if (minAge != null) {
+            jpql.append(" AND c.age >= :minAge");
+        }
+        if (maxAge != null) {
+            jpql.append(" AND c.age <= :maxAge");
+        }
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.append(" ORDER BY c.id").toString(), Object[].class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit);
+        if (minAge != null) {
+            query.setParameter("minAge", minAge);
+        }
+        if (maxAge != null) {
+            query.setParameter("maxAge", maxAge);
+        }
+        return query.getResultList().stream().map(row -> toCustomer(row, fields)).toList();
+    }
+
+    @Override
+    public Optional<Customer> findFieldsById(Integer id, Set<CustomerField> fields) {
+        return entityManager.createQuery(select(fields) + " WHERE c.id = :id", Object[].class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .map(row -> toCustomer(row, fields));
+    }
+
+    private static String select(Set<CustomerField> fields) {
+        List<String> attributes = new ArrayList<>(List.of("c.id", "c.version"));
+        for (CustomerField field : fields) {
+            if (field != CustomerField.ID) {
+                attributes.add("c." + field.column());
+            }
+        }
+        return "SELECT " + String.join(", ", attributes) + " FROM Customer c";
+    }
+
+    // the row holds the id, the version, then the fields in enum order, as select() lists them
+    private static Customer toCustomer(Object[] row, Set<CustomerField> fields) {
+        Customer customer = new Customer();
+        customer.setId((Integer) row[0]);
+        customer.setVersion((Long) row[1]);
+        int column = 2;
+        for (CustomerField field : fields) {
+            switch (field) {
+                case ID -> {
+                }
+                case NAME -> customer.setName((String) row[column++]);
+                case EMAIL -> customer.setEmail((String) row[column++]);
+                case AGE -> customer.setAge((Integer) row[column++]);
+            }
+        }
+        return customer;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "customer")
+public record CustomerProperties(
+        @DefaultValue Dao dao,
+        @DefaultValue Cache cache,
+        @DefaultValue PageCache pageCache,
+        @DefaultValue EmailFilter emailFilter,
+        @DefaultValue Stats stats,
+        @DefaultValue Metrics metrics,
+        @DefaultValue StatementLog statementLog
+) {
+    /**
+     * @param implementation bean name of the {@link CustomerDAO} the service works with
+     */
+    public record Dao(
+            @DefaultValue("jdbc") String implementation
+    ) {
+    }
+
+    /**
+     * @param maximumSize ceiling for the estimated heap taken by cached customers
+     * @param expireAfterWrite bounds staleness for writes that bypass this application
+     */
+    public record Cache(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("64MB") DataSize maximumSize,
+            @DefaultValue("10m") Duration expireAfterWrite
+    ) {
+    }
+
+    /**
+     * @param maximumSize ceiling for the encoded bytes of the cached pages
+     * @param expireAfterWrite bounds staleness for writes that bypass this application
+     * @param gzip whether larger pages also keep a gzipped copy for clients that accept it
+     */
+    public record PageCache(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("32MB") DataSize maximumSize,
+            @DefaultValue("10m") Duration expireAfterWrite,
+            @DefaultValue("true") boolean gzip
+    ) {
+    }
+
+    /**
+     * @param enabled off by default: no write path asks {@code existsCustomerWithEmail} since they detect
+     *                taken emails in the insert or update statement itself
+     * @param expectedInsertions minimum number of emails the filter is sized for
+     * @param maxStaleRatio removed or replaced emails, relative to the filter's emails, that trigger a rebuild
+     * @param rebuildCheckInterval how often the filter is checked for a rebuild
+     */
+    public record EmailFilter(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("1000000") long expectedInsertions,
+            @DefaultValue("0.01") double falsePositiveRate,
+            @DefaultValue("0.2") double maxStaleRatio,
+            @DefaultValue("PT1M") Duration rebuildCheckInterval
+    ) {
+    }
+
+    /**
+     * @param reconcileInterval how often the per-age counters are checked against the customers
+     */
+    public record Stats(
+            @DefaultValue("PT1H") Duration reconcileInterval
+    ) {
+    }
+
+    /**
+     * @param enabled whether every DAO call is timed as {@code customer.dao}
+     */
+    public record Metrics(
+            @DefaultValue("true") boolean enabled
+    ) {
+    }
+
+    /**
+     * @param slowThreshold statements taking at least this long are always logged
+     * @param sampleRate share of the faster statements that are logged
+     */
+    public record StatementLog(
+            @DefaultValue("100ms") Duration slowThreshold,
+            @DefaultValue("0.01") double sampleRate
+    ) {
+    }
+}
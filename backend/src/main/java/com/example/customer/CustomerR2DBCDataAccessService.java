@@ -0,0 +1,222 @@
+package com.example.customer;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Same statements as {@link CustomerJDBCDataAccessService}, run through R2DBC.
+ */
+@Repository
+@Profile("reactive")
+public class CustomerR2DBCDataAccessService implements ReactiveCustomerDAO {
+    // rows the driver pulls per round trip while a result is streamed
+    static final int STREAM_FETCH_SIZE = 500;
+
+    private final DatabaseClient databaseClient;
+
+    public CustomerR2DBCDataAccessService(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * With a fetch size the driver reads through a portal and only asks Postgres for the next rows
+     * once the subscriber has requested them, so a slow client holds back the query instead of
+     * buffering the table.
+     */
+    @Override
+    public Flux<Customer> selectAllCustomers() {
+        var sql = """
+                SELECT id, name, email, age, version FROM customer
+                ORDER BY id
+                """;
+
+        return databaseClient.sql(sql)
+                .filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+                .map(CustomerR2DBCDataAccessService::mapCustomer)
+                .all();
+    }
+
+    @Override
+    public Flux<Customer> selectCustomerPage(int afterId, int limit) {
+        var sql = """
+                SELECT id, name, email, age, version FROM customer
+                WHERE id > :afterId
+                ORDER BY id
+                LIMIT :limit
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(CustomerR2DBCDataAccessService::mapCustomer)
+                .all();
+    }
+
+    @Override
+    public Flux<Customer> selectCustomerPageByAge(Integer age, int afterId, int limit) {
+        var sql = """
+                SELECT id, name, email, age, version FROM customer
+                WHERE age = :age AND id > :afterId
+                ORDER BY id
+                LIMIT :limit
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("age", age)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(CustomerR2DBCDataAccessService::mapCustomer)
+                .all();
+    }
+
+    @Override
+    public Flux<Customer> selectCustomerPageByAgeRange(int minAge, int maxAge, int afterId, int limit) {
+        var sql = """
+                SELECT id, name, email, age, version FROM customer
+                WHERE age BETWEEN :minAge AND :maxAge AND id > :afterId
+                ORDER BY id
+                LIMIT :limit
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("minAge", minAge)
+                .bind("maxAge", maxAge)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(CustomerR2DBCDataAccessService::mapCustomer)
+                .all();
+    }
+
+    @Override
+    public Mono<Customer> selectCustomerById(Integer id) {
+        var sql = """
+                SELECT id, name, email, age, version FROM customer
+                WHERE id = :id
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("id", id)
+                .map(CustomerR2DBCDataAccessService::mapCustomer)
+                .one();
+    }
+
+    @Override
+    public Mono<Integer> insertCustomerIfEmailFree(Customer customer) {
+        var sql = """
+                INSERT INTO customer(name, email, age)
+                VALUES (:name, :email, :age)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("name", customer.getName())
+                .bind("email", customer.getEmail())
+                .bind("age", customer.getAge())
+                .map(row -> row.get("id", Integer.class))
+                .one();
+    }
+
+    @Override
+    public Mono<Boolean> removeCustomerById(Integer id) {
+        var sql = """
+                DELETE FROM customer WHERE id = :id
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .map(removed -> removed > 0);
+    }
+
+    @Override
+    public Mono<Integer> removeCustomersByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(0);
+        }
+        var sql = """
+                DELETE FROM customer WHERE id = ANY(:ids)
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("ids", ids.toArray(Integer[]::new))
+                .fetch()
+                .rowsUpdated()
+                .map(Long::intValue);
+    }
+
+    /**
+     * See {@link CustomerJDBCDataAccessService#updateCustomerById(Integer, CustomerUpdateRequest)}.
+     */
+    @Override
+    public Mono<CustomerUpdateResult> updateCustomerById(Integer id, CustomerUpdateRequest update) {
+        List<String> assignments = new ArrayList<>(3);
+        List<String> changes = new ArrayList<>(3);
+        if (update.name() != null) {
+            assignments.add("name = :name");
+            changes.add("name IS DISTINCT FROM :name");
+        }
+        if (update.email() != null) {
+            assignments.add("email = :email");
+            changes.add("email IS DISTINCT FROM :email");
+        }
+        if (update.age() != null) {
+            assignments.add("age = :age");
+            changes.add("age IS DISTINCT FROM :age");
+        }
+        if (assignments.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("Update request for customer [%s] has no fields".formatted(id)));
+        }
+
+        var sql = """
+                WITH target AS (
+                    SELECT id FROM customer WHERE id = :id
+                ), updated AS (
+                    UPDATE customer
+                    SET %s, version = version + 1
+                    WHERE id = :id AND (%s)
+                    RETURNING id, name, email, age, version
+                )
+                SELECT updated.id, updated.name, updated.email, updated.age, updated.version
+                FROM target LEFT JOIN updated ON true
+                """.formatted(String.join(", ", assignments), String.join(" OR ", changes));
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql).bind("id", id);
+        if (update.name() != null) {
+            spec = spec.bind("name", update.name());
+        }
+        if (update.email() != null) {
+            spec = spec.bind("email", update.email());
+        }
+        if (update.age() != null) {
+            spec = spec.bind("age", update.age());
+        }
+        return spec
+                .map(row -> row.get("id") == null
+                        ? CustomerUpdateResult.unchanged()
+                        : CustomerUpdateResult.updated(mapCustomer(row)))
+                .one()
+                .defaultIfEmpty(CustomerUpdateResult.notFound())
+                .onErrorReturn(DuplicateKeyException.class, CustomerUpdateResult.emailTaken());
+    }
+
+    private static Customer mapCustomer(Readable row) {
+        return new Customer(
+                row.get("id", Integer.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                row.get("age", Integer.class),
+                row.get("version", Long.class)
+        );
+    }
+}
@@ -1,13 +1,78 @@
 package com.example.customer;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
-public interface CustomerRepository extends JpaRepository<Customer, Integer> {
+public interface CustomerRepository extends JpaRepository<Customer, Integer>, CustomerProjectionRepository {
     List<Customer> findByAge(Integer age);
+    List<Customer> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+    List<Customer> findByAgeAndIdGreaterThanOrderByIdAsc(Integer age, Integer id, Pageable pageable);
+    List<Customer> findByAgeBetweenAndIdGreaterThanOrderByIdAsc(Integer minAge, Integer maxAge, Integer id, Pageable pageable);
     boolean existsCustomerByEmail(String email);
+
+    // the id comes from the column default, like for the JDBC DAO
+    @Transactional
+    @Query(value = """
+            INSERT INTO customer(name, email, age)
+            VALUES (:name, :email, :age)
+            ON CONFLICT (email) DO NOTHING
+            RETURNING id
+            """, nativeQuery = true)
+    Optional<Integer> insertIfEmailFree(@Param("name") String name,
+                                        @Param("email") String email,
+                                        @Param("age") Integer age);
+
+    // bulk JPQL deletes skip the select-then-remove that deleteById does
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Customer c WHERE c.id = :id")
+    int deleteCustomerById(@Param("id") Integer id);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Customer c WHERE c.id IN :ids")
+    int deleteCustomersByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query(value = """
+            SELECT age, customers FROM customer_age_count
+            WHERE customers > 0
+            ORDER BY age
+            """, nativeQuery = true)
+    List<AgeCount> countCustomersByAge();
+
+    @Transactional
+    @Modifying
+    @Query(value = CustomerJDBCDataAccessService.RECONCILE_AGE_COUNTS_SQL, nativeQuery = true)
+    int reconcileCustomerCountsByAge();
+
+    interface AgeCount {
+        Integer getAge();
+        Long getCustomers();
+    }
+
+    @Query("SELECT c.email FROM Customer c WHERE c.email IN :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // the JDBC DAO's search; pg_trgm operators have no JPQL form
+    @Query(value = """
+            SELECT * FROM customer
+            WHERE name ILIKE :contains OR email ILIKE :contains OR name % :term OR email % :term
+            ORDER BY (name ILIKE :prefix OR email ILIKE :prefix) DESC,
+                     greatest(similarity(name, :term), similarity(email, :term)) DESC,
+                     id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Customer> searchByNameOrEmail(@Param("term") String term,
+                                       @Param("contains") String contains,
+                                       @Param("prefix") String prefix,
+                                       @Param("limit") int limit);
 }
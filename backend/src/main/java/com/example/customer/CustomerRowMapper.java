@@ -5,6 +5,7 @@ import org.springframework.stereotype.Component;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Set;
 
 @Component
 public class CustomerRowMapper implements RowMapper<Customer> {
@@ -14,7 +15,35 @@ public class CustomerRowMapper implements RowMapper<Customer> {
                 rs.getInt("id"),
                 rs.getString("name"),
                 rs.getString("email"),
-                rs.getInt("age")
+                rs.getInt("age"),
+                rs.getLong("version")
         );
     }
+
+    /**
+     * Maps rows that carry only the id, the version and the columns of {@code fields}.
+     */
+    public RowMapper<Customer> forFields(Set<CustomerField> fields) {
+        if (fields.equals(CustomerField.ALL)) {
+            return this;
+        }
+        boolean name = fields.contains(CustomerField.NAME);
+        boolean email = fields.contains(CustomerField.EMAIL);
+        boolean age = fields.contains(CustomerField.AGE);
+        return (rs, rowNum) -> {
+            Customer customer = new Customer();
+            customer.setId(rs.getInt("id"));
+            if (name) {
+                customer.setName(rs.getString("name"));
+            }
+            if (email) {
+                customer.setEmail(rs.getString("email"));
+            }
+            if (age) {
+                customer.setAge(rs.getInt("age"));
+            }
+            customer.setVersion(rs.getLong("version"));
+            return customer;
+        };
+    }
 }
@@ -0,0 +1,126 @@
+package com.example.customer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * One customer search, evaluated in memory the way the database DAOs' pg_trgm query does it, so every
+ * DAO returns the same customers in the same order.
+ * <p>
+ * A customer matches when its name or email contains the term, ignoring case, or when either is
+ * similar to it as pg_trgm's {@code %} operator decides: word trigrams shared over trigrams in
+ * either, at or above {@value #SIMILARITY_THRESHOLD}. Matches rank prefix matches first, then by the
+ * better similarity of name and email, then by id. {@link #offer(Customer)} keeps only the best
+ * {@code limit} matches.
+ */
+final class CustomerSearch {
+    // pg_trgm.similarity_threshold's default, which the % operator compares against
+    static final double SIMILARITY_THRESHOLD = 0.3;
+
+    private static final Comparator<Match> RANKING = Comparator.comparing(Match::prefix)
+            .thenComparing(Match::similarity)
+            .reversed()
+            .thenComparing(match -> match.customer().getId());
+
+    private final String term;
+    private final Set<String> trigrams;
+    private final int limit;
+    // the worst match kept is at the head
+    private final PriorityQueue<Match> best;
+
+    CustomerSearch(String term, int limit) {
+        this.term = term.toLowerCase(Locale.ROOT);
+        this.trigrams = trigrams(term);
+        this.limit = limit;
+        this.best = new PriorityQueue<>(RANKING.reversed());
+    }
+
+    String term() {
+        return term;
+    }
+
+    Set<String> trigrams() {
+        return trigrams;
+    }
+
+    void offer(Customer customer) {
+        String name = lowerCase(customer.getName());
+        String email = lowerCase(customer.getEmail());
+        float similarity = Math.max(similarity(trigrams, trigrams(name)), similarity(trigrams, trigrams(email)));
+        boolean contains = name.contains(term) || email.contains(term);
+        if (!contains && similarity < SIMILARITY_THRESHOLD) {
+            return;
+        }
+        best.add(new Match(customer, name.startsWith(term) || email.startsWith(term), similarity));
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    /**
+     * @return the best matches, best first
+     */
+    List<Customer> results() {
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(RANKING);
+        return matches.stream().map(Match::customer).toList();
+    }
+
+    /**
+     * pg_trgm's trigrams of {@code text}: each run of letters and digits, lower-cased and padded with
+     * two spaces in front and one behind, cut into every three consecutive characters.
+     */
+    static Set<String> trigrams(String text) {
+        Set<String> trigrams = new HashSet<>();
+        String lowerCase = lowerCase(text);
+        int start = -1;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            boolean wordChar = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String padded = "  " + lowerCase.substring(start, i) + " ";
+                for (int j = 0; j + 3 <= padded.length(); j++) {
+                    trigrams.add(padded.substring(j, j + 3));
+                }
+                start = -1;
+            }
+        }
+        return trigrams;
+    }
+
+    /**
+     * pg_trgm's {@code similarity}, computed in {@code float} like the C code so ties rank the same.
+     */
+    static float similarity(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        int common = 0;
+        for (String trigram : a) {
+            if (b.contains(trigram)) {
+                common++;
+            }
+        }
+        return (float) common / (float) (a.size() + b.size() - common);
+    }
+
+    /**
+     * {@code term} with LIKE's wildcards and escape character escaped, for patterns matching it literally.
+     */
+    static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String lowerCase(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private record Match(Customer customer, boolean prefix, float similarity) {
+    }
+}
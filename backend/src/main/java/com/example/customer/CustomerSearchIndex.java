@@ -0,0 +1,96 @@
+package com.example.customer;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory counterpart of the pg_trgm GIN indexes on name and email: two inverted indexes from
+ * trigrams to customer ids. One holds every three consecutive characters of the lower-cased values,
+ * which narrows "contains" searches to the ids listed under all of the term's trigrams. The other holds
+ * pg_trgm's word trigrams, which a similar value must share with the term.
+ * <p>
+ * Candidates are a superset of the matches; {@link CustomerSearch} decides. Callers serialise writes,
+ * and readers re-check candidates against the row they read, as for their other indexes.
+ */
+final class CustomerSearchIndex {
+    private final Map<String, Set<Integer>> idsBySubstring = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> idsByWordTrigram = new ConcurrentHashMap<>();
+
+    void add(Customer customer) {
+        for (String trigram : substrings(customer)) {
+            idsBySubstring.computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet()).add(customer.getId());
+        }
+        for (String trigram : wordTrigrams(customer)) {
+            idsByWordTrigram.computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet()).add(customer.getId());
+        }
+    }
+
+    void remove(Customer customer) {
+        for (String trigram : substrings(customer)) {
+            removeId(idsBySubstring, trigram, customer.getId());
+        }
+        for (String trigram : wordTrigrams(customer)) {
+            removeId(idsByWordTrigram, trigram, customer.getId());
+        }
+    }
+
+    /**
+     * @return the ids that may match, or empty when the term is too short for its trigrams to narrow
+     * the search and every customer has to be checked
+     */
+    Optional<Set<Integer>> candidates(CustomerSearch search) {
+        String term = search.term();
+        if (term.length() < 3) {
+            return Optional.empty();
+        }
+        Set<Integer> candidates = new HashSet<>();
+        Set<Integer> smallest = null;
+        for (String trigram : substrings(term)) {
+            Set<Integer> ids = idsBySubstring.getOrDefault(trigram, Set.of());
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        // a value containing the term has all of its trigrams; the rarest one bounds the candidates
+        candidates.addAll(smallest);
+        for (String trigram : search.trigrams()) {
+            candidates.addAll(idsByWordTrigram.getOrDefault(trigram, Set.of()));
+        }
+        return Optional.of(candidates);
+    }
+
+    private static void removeId(Map<String, Set<Integer>> index, String trigram, Integer id) {
+        index.computeIfPresent(trigram, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> substrings(Customer customer) {
+        Set<String> substrings = substrings(lowerCase(customer.getName()));
+        substrings.addAll(substrings(lowerCase(customer.getEmail())));
+        return substrings;
+    }
+
+    private static Set<String> substrings(String text) {
+        Set<String> substrings = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            substrings.add(text.substring(i, i + 3));
+        }
+        return substrings;
+    }
+
+    private static Set<String> wordTrigrams(Customer customer) {
+        Set<String> trigrams = CustomerSearch.trigrams(customer.getName());
+        trigrams.addAll(CustomerSearch.trigrams(customer.getEmail()));
+        return trigrams;
+    }
+
+    private static String lowerCase(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,19 +2,36 @@ package com.example.customer;
 
 import com.example.exception.CreateCustomerInvalidatedException;
 import com.example.exception.EmailTakenException;
+import com.example.exception.InvalidPageRequestException;
+import com.example.exception.InvalidSearchRequestException;
 import com.example.exception.ResourceNotFoundException;
 import com.example.exception.UpdateCustomerInvalidatedException;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.regex.*;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 @Service
 public class CustomerService {
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int AGE_HISTOGRAM_BUCKET_WIDTH = 10;
+    static final int DEFAULT_SEARCH_LIMIT = 10;
+    static final int MAX_SEARCH_LIMIT = 100;
+    static final int MAX_SEARCH_TERM_LENGTH = 100;
+
     private final CustomerDAO customerDAO;
 
-    public CustomerService(@Qualifier("jdbc") CustomerDAO customerDAO) {
+    public CustomerService(@Qualifier("customerDAO") CustomerDAO customerDAO) {
         this.customerDAO = customerDAO;
     }
 
@@ -26,63 +43,252 @@ public class CustomerService {
         return customerDAO.selectCustomerByAge(age);
     }
 
+    /**
+     * Filters by exact {@code age} or by an inclusive {@code minAge}/{@code maxAge} range, where a
+     * missing bound is open; the two filters cannot be combined.
+     */
+    public CustomerPage getCustomers(Integer age, Integer minAge, Integer maxAge, String after, Integer limit) {
+        return getCustomers(age, minAge, maxAge, after, limit, CustomerField.ALL);
+    }
+
+    /**
+     * Like {@link #getCustomers(Integer, Integer, Integer, String, Integer)}, with only the id and
+     * {@code fields} set on the customers.
+     */
+    public CustomerPage getCustomers(Integer age, Integer minAge, Integer maxAge, String after, Integer limit,
+                                     Set<CustomerField> fields) {
+        int pageSize = resolvePageSize(limit);
+        int afterId = CustomerCursor.decode(after);
+        checkAgeFilter(age, minAge, maxAge);
+        // fetch one extra row to know whether there is a next page
+        List<Customer> rows;
+        if (age != null) {
+            rows = selectPageByAge(age, afterId, pageSize + 1, fields);
+        } else if (minAge != null || maxAge != null) {
+            rows = selectPageByAgeRange(
+                    minAge == null ? 0 : minAge,
+                    maxAge == null ? Integer.MAX_VALUE : maxAge,
+                    afterId,
+                    pageSize + 1,
+                    fields
+            );
+        } else {
+            rows = selectPage(afterId, pageSize + 1, fields);
+        }
+        return CustomerPage.of(rows, pageSize);
+    }
+
+    private List<Customer> selectPage(int afterId, int limit, Set<CustomerField> fields) {
+        return fields.equals(CustomerField.ALL)
+                ? customerDAO.selectCustomerPage(afterId, limit)
+                : customerDAO.selectCustomerFieldsPage(afterId, limit, fields);
+    }
+
+    private List<Customer> selectPageByAge(Integer age, int afterId, int limit, Set<CustomerField> fields) {
+        return fields.equals(CustomerField.ALL)
+                ? customerDAO.selectCustomerPageByAge(age, afterId, limit)
+                : customerDAO.selectCustomerFieldsPageByAge(age, afterId, limit, fields);
+    }
+
+    private List<Customer> selectPageByAgeRange(int minAge, int maxAge, int afterId, int limit,
+                                                Set<CustomerField> fields) {
+        return fields.equals(CustomerField.ALL)
+                ? customerDAO.selectCustomerPageByAgeRange(minAge, maxAge, afterId, limit)
+                : customerDAO.selectCustomerFieldsPageByAgeRange(minAge, maxAge, afterId, limit, fields);
+    }
+
+    /**
+     * Built from the maintained per-age counters, so the cost depends on the number of distinct ages
+     * rather than the number of customers.
+     */
+    public CustomerStats getCustomerStats() {
+        SortedMap<Integer, Long> customersByAge = customerDAO.countCustomersByAge();
+        if (customersByAge.isEmpty()) {
+            return new CustomerStats(0, null, null, null, customersByAge, List.of());
+        }
+        long total = 0;
+        long ageSum = 0;
+        SortedMap<Integer, Long> buckets = new TreeMap<>();
+        for (Map.Entry<Integer, Long> entry : customersByAge.entrySet()) {
+            int age = entry.getKey();
+            long customers = entry.getValue();
+            total += customers;
+            ageSum += age * customers;
+            buckets.merge(Math.floorDiv(age, AGE_HISTOGRAM_BUCKET_WIDTH), customers, Long::sum);
+        }
+        List<CustomerStats.AgeBucket> histogram = new ArrayList<>(buckets.size());
+        buckets.forEach((bucket, customers) -> histogram.add(new CustomerStats.AgeBucket(
+                bucket * AGE_HISTOGRAM_BUCKET_WIDTH,
+                bucket * AGE_HISTOGRAM_BUCKET_WIDTH + AGE_HISTOGRAM_BUCKET_WIDTH - 1,
+                customers
+        )));
+        return new CustomerStats(
+                total,
+                customersByAge.firstKey(),
+                customersByAge.lastKey(),
+                (double) ageSum / total,
+                customersByAge,
+                histogram
+        );
+    }
+
+    /**
+     * Type-ahead lookup over name and email, best matches first; {@code limit} is capped at
+     * {@value #MAX_SEARCH_LIMIT}.
+     */
+    public List<Customer> searchCustomers(String query, Integer limit) {
+        String term = query == null ? "" : query.strip();
+        if (term.isEmpty()) {
+            throw new InvalidSearchRequestException("Search term must not be blank");
+        }
+        if (term.length() > MAX_SEARCH_TERM_LENGTH) {
+            throw new InvalidSearchRequestException(
+                    "Search term must be at most %s characters".formatted(MAX_SEARCH_TERM_LENGTH));
+        }
+        if (limit != null && limit < 1) {
+            throw new InvalidSearchRequestException("Limit must be a positive number");
+        }
+        return customerDAO.searchCustomers(term, limit == null ? DEFAULT_SEARCH_LIMIT : Math.min(limit, MAX_SEARCH_LIMIT));
+    }
+
+    public void forEachCustomer(Consumer<Customer> action) {
+        customerDAO.forEachCustomer(action);
+    }
+
     public Customer getCustomerById(Integer id) {
         return customerDAO.selectCustomerById(id).
                 orElseThrow(() -> new ResourceNotFoundException("Customer with id [%s] is not found".formatted(id)));
     }
 
-    public void addCustomer(CustomerRegistrationRequest request) {
-        if (!validateEmail(request.email()) || !validateAge(request.age())) {
-            throw new CreateCustomerInvalidatedException("The age or email is invalid");
-        } else if (customerDAO.existsCustomerWithEmail(request.email())) {
-            throw new EmailTakenException("Email already taken");
-        } else {
-            Customer customer = new Customer(
-                    request.name(), request.email(), request.age()
-            );
-            customerDAO.insertCustomer(customer);
+    public Customer getCustomerById(Integer id, Set<CustomerField> fields) {
+        if (fields.equals(CustomerField.ALL)) {
+            return getCustomerById(id);
         }
+        return customerDAO.selectCustomerFieldsById(id, fields).
+                orElseThrow(() -> new ResourceNotFoundException("Customer with id [%s] is not found".formatted(id)));
     }
 
-    public void removeCustomerById(Integer id) {
-        customerDAO.selectCustomerById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Customer with the requested id is not found"));
-        customerDAO.removeCustomerById(id);
+    /**
+     * @return the id of the new customer
+     */
+    public Integer addCustomer(CustomerRegistrationRequest request) {
+        int violations = CustomerValidator.validate(request);
+        if (violations != 0) {
+            throw new CreateCustomerInvalidatedException(CustomerValidator.describe(violations));
+        }
+        Customer customer = new Customer(
+                request.name(), request.email(), request.age()
+        );
+        return customerDAO.insertCustomerIfEmailFree(customer)
+                .orElseThrow(() -> new EmailTakenException("Email already taken"));
     }
 
-    public void updateCustomerById(Integer id, CustomerUpdateRequest request) {
-        Customer targetCustomer = getCustomerById(id);
-        boolean hasUpdated = false;
-        if (request.name() != null && !request.name().isBlank() && !request.name().equals(targetCustomer.getName())) {
-            targetCustomer.setName(request.name());
-            hasUpdated = true;
+    /**
+     * Validates the whole batch in one pass and inserts the valid records in one DAO call.
+     * Invalid records and taken emails are reported per row instead of failing the batch.
+     */
+    public BulkRegistrationResult addCustomers(List<CustomerRegistrationRequest> requests) {
+        List<BulkRegistrationFailure> failures = new ArrayList<>();
+        List<Customer> accepted = new ArrayList<>(requests.size());
+        Map<String, Integer> rowByEmail = new HashMap<>();
+        for (int row = 0; row < requests.size(); row++) {
+            CustomerRegistrationRequest request = requests.get(row);
+            int violations = CustomerValidator.validate(request);
+            if (violations != 0) {
+                failures.add(new BulkRegistrationFailure(
+                        row, request == null ? null : request.email(), CustomerValidator.describe(violations)));
+            } else if (rowByEmail.putIfAbsent(request.email(), row) != null) {
+                failures.add(new BulkRegistrationFailure(row, request.email(), "Email is repeated in the batch"));
+            } else {
+                accepted.add(new Customer(request.name(), request.email(), request.age()));
+            }
+        }
+
+        Set<String> taken = accepted.isEmpty() ? Set.of() : customerDAO.insertCustomers(accepted);
+        for (String email : taken) {
+            failures.add(new BulkRegistrationFailure(rowByEmail.get(email), email, "Email already taken"));
         }
-        if (request.email() != null && !request.email().isBlank() && !request.email().equals(targetCustomer.getEmail())) {
-            if (customerDAO.existsCustomerWithEmail(request.email())) {
-                throw new EmailTakenException("Email already taken");
+        failures.sort(Comparator.comparingInt(BulkRegistrationFailure::row));
+        return new BulkRegistrationResult(requests.size(), accepted.size() - taken.size(), failures);
+    }
+
+    public void removeCustomerById(Integer id) {
+        if (!customerDAO.removeCustomerById(id)) {
+            throw new ResourceNotFoundException("Customer with the requested id is not found");
+        }
+    }
+
+    /**
+     * Ids that do not exist are skipped rather than failing the whole request, so retention jobs can
+     * resend a batch safely.
+     */
+    public BulkRemovalResult removeCustomersByIds(List<Integer> ids) {
+        Set<Integer> distinctIds = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (id != null) {
+                distinctIds.add(id);
             }
-            targetCustomer.setEmail(request.email());
-            hasUpdated = true;
         }
-        if (request.age() != null && !request.age().equals(targetCustomer.getAge())) {
-            targetCustomer.setAge(request.age());
-            hasUpdated = true;
+        if (distinctIds.isEmpty()) {
+            return new BulkRemovalResult(0, 0);
         }
-        if (!hasUpdated) {
+        return new BulkRemovalResult(distinctIds.size(), customerDAO.removeCustomersByIds(distinctIds));
+    }
+
+    /**
+     * Blank names and emails count as absent, and the fields set must pass {@link CustomerValidator}.
+     * The DAO decides "not found", "email taken" and "nothing changed" from the update statement
+     * itself, without reading the customer first.
+     *
+     * @return the customer as written
+     */
+    public Customer updateCustomerById(Integer id, CustomerUpdateRequest request) {
+        return updatedCustomer(id, customerDAO.updateCustomerById(id, normalizeUpdate(request)));
+    }
+
+    static CustomerUpdateRequest normalizeUpdate(CustomerUpdateRequest request) {
+        CustomerUpdateRequest update = new CustomerUpdateRequest(
+                blankToNull(request.name()), blankToNull(request.email()), request.age()
+        );
+        if (update.name() == null && update.email() == null && update.age() == null) {
             throw new UpdateCustomerInvalidatedException("No valid, new data is received, no update is made");
         }
-        customerDAO.updateCustomer(targetCustomer);
+        int violations = CustomerValidator.validate(update);
+        if (violations != 0) {
+            throw new UpdateCustomerInvalidatedException(CustomerValidator.describe(violations));
+        }
+        return update;
+    }
 
+    static Customer updatedCustomer(Integer id, CustomerUpdateResult result) {
+        return switch (result.status()) {
+            case UPDATED -> result.customer();
+            case NOT_FOUND -> throw new ResourceNotFoundException("Customer with id [%s] is not found".formatted(id));
+            case EMAIL_TAKEN -> throw new EmailTakenException("Email already taken");
+            case UNCHANGED -> throw new UpdateCustomerInvalidatedException("No valid, new data is received, no update is made");
+        };
     }
 
-    private boolean validateEmail(String emailStr) {
-        Pattern VALID_EMAIL_ADDRESS_REGEX =
-                Pattern.compile("^[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,6}$", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = VALID_EMAIL_ADDRESS_REGEX.matcher(emailStr);
-        return matcher.matches();
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
     }
 
-    private boolean validateAge(Integer age) {
-        return age >= 16;
+    static void checkAgeFilter(Integer age, Integer minAge, Integer maxAge) {
+        if (age != null && (minAge != null || maxAge != null)) {
+            throw new InvalidPageRequestException("Age cannot be combined with minAge or maxAge");
+        }
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            throw new InvalidPageRequestException("minAge must not be greater than maxAge");
+        }
+    }
+
+    static int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            throw new InvalidPageRequestException("Limit must be a positive number");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
     }
 }
@@ -0,0 +1,29 @@
+package com.example.customer;
+
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Summary of all customers. The age fields are null when there are no customers.
+ *
+ * @param customersByAge customers per age, for ages that have any
+ * @param ageHistogram customers per {@value CustomerService#AGE_HISTOGRAM_BUCKET_WIDTH}-year age bucket, for buckets that have any
+ */
+public record CustomerStats(
+        long total,
+        Integer minAge,
+        Integer maxAge,
+        Double meanAge,
+        SortedMap<Integer, Long> customersByAge,
+        List<AgeBucket> ageHistogram
+) {
+    /**
+     * Customers aged {@code fromAge} to {@code toAge} inclusive.
+     */
+    public record AgeBucket(
+            int fromAge,
+            int toAge,
+            long customers
+    ) {
+    }
+}
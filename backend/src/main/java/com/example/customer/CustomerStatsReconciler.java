@@ -0,0 +1,45 @@
+package com.example.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically checks the per-age counters behind GET /customers/stats against the customers
+ * themselves. Drift should not happen; when it does (writes that bypass the triggers, a restored
+ * backup) it is corrected and logged.
+ */
+@Component
+public class CustomerStatsReconciler {
+    private static final Logger log = LoggerFactory.getLogger(CustomerStatsReconciler.class);
+
+    private final CustomerDAO customerDAO;
+    private final Counter correctedAges;
+
+    public CustomerStatsReconciler(@Qualifier("customerDAO") CustomerDAO customerDAO, MeterRegistry meterRegistry) {
+        this.customerDAO = customerDAO;
+        this.correctedAges = Counter.builder("customer.stats.reconciled.ages")
+                .description("Ages whose customer count had drifted and was corrected")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(
+            initialDelayString = "${customer.stats.reconcile-interval:PT1H}",
+            fixedDelayString = "${customer.stats.reconcile-interval:PT1H}"
+    )
+    public void reconcile() {
+        try {
+            int corrected = customerDAO.reconcileCustomerCountsByAge();
+            if (corrected > 0) {
+                correctedAges.increment(corrected);
+                log.warn("Corrected customer counts for {} ages", corrected);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not reconcile customer counts", e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.customer;
+
+/**
+ * Outcome of {@link CustomerDAO#updateCustomerById(Integer, CustomerUpdateRequest)}.
+ * {@code customer} is the row as written and only set when the status is {@link Status#UPDATED}.
+ */
+public record CustomerUpdateResult(
+        Status status,
+        Customer customer
+) {
+    public enum Status {
+        UPDATED,
+        NOT_FOUND,
+        UNCHANGED,
+        EMAIL_TAKEN
+    }
+
+    static CustomerUpdateResult updated(Customer customer) {
+        return new CustomerUpdateResult(Status.UPDATED, customer);
+    }
+
+    static CustomerUpdateResult notFound() {
+        return new CustomerUpdateResult(Status.NOT_FOUND, null);
+    }
+
+    static CustomerUpdateResult unchanged() {
+        return new CustomerUpdateResult(Status.UNCHANGED, null);
+    }
+
+    static CustomerUpdateResult emailTaken() {
+        return new CustomerUpdateResult(Status.EMAIL_TAKEN, null);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.customer;
+
+import java.util.StringJoiner;
+
+/**
+ * Field rules for registrations and updates, shared by the single, bulk and reactive paths.
+ * <p>
+ * A check looks at every field once and returns the violations as a bit set, 0 when the request is
+ * valid, so the success path allocates nothing; {@link #describe(int)} builds the message only for a
+ * failure. Emails are checked by {@link #isValidEmail(CharSequence)}, a single forward scan that
+ * accepts exactly what {@code ^[A-Z0-9._%+-]+@[A-Z0-9.-]+\.[A-Z]{2,6}$} (case-insensitive) does.
+ */
+final class CustomerValidator {
+    static final int RECORD_EMPTY = 1;
+    static final int NAME_MISSING = 1 << 1;
+    static final int EMAIL_INVALID = 1 << 2;
+    static final int AGE_INVALID = 1 << 3;
+
+    static final int MIN_AGE = 16;
+    private static final int MIN_TOP_LEVEL_DOMAIN_LENGTH = 2;
+    private static final int MAX_TOP_LEVEL_DOMAIN_LENGTH = 6;
+
+    private CustomerValidator() {
+    }
+
+    /**
+     * @return the violations, 0 when the request can be registered
+     */
+    static int validate(CustomerRegistrationRequest request) {
+        if (request == null) {
+            return RECORD_EMPTY;
+        }
+        int violations = 0;
+        if (request.name() == null || request.name().isBlank()) {
+            violations |= NAME_MISSING;
+        }
+        if (request.email() == null || !isValidEmail(request.email())) {
+            violations |= EMAIL_INVALID;
+        }
+        if (request.age() == null || !isValidAge(request.age())) {
+            violations |= AGE_INVALID;
+        }
+        return violations;
+    }
+
+    /**
+     * Checks the fields an update sets; absent fields keep their value and are not checked.
+     *
+     * @param update an update already normalized, with blank names and emails turned into nulls
+     * @return the violations, 0 when the update can be applied
+     */
+    static int validate(CustomerUpdateRequest update) {
+        int violations = 0;
+        if (update.email() != null && !isValidEmail(update.email())) {
+            violations |= EMAIL_INVALID;
+        }
+        if (update.age() != null && !isValidAge(update.age())) {
+            violations |= AGE_INVALID;
+        }
+        return violations;
+    }
+
+    /**
+     * @return the reasons for {@code violations}, in field order, e.g. "Name is missing, Age is invalid"
+     */
+    static String describe(int violations) {
+        StringJoiner reasons = new StringJoiner(", ");
+        if ((violations & RECORD_EMPTY) != 0) {
+            reasons.add("Record is empty");
+        }
+        if ((violations & NAME_MISSING) != 0) {
+            reasons.add("Name is missing");
+        }
+        if ((violations & EMAIL_INVALID) != 0) {
+            reasons.add("Email is invalid");
+        }
+        if ((violations & AGE_INVALID) != 0) {
+            reasons.add("Age is invalid");
+        }
+        return reasons.toString();
+    }
+
+    static boolean isValidAge(int age) {
+        return age >= MIN_AGE;
+    }
+
+    /**
+     * One or more local-part characters, a single {@code @}, then a domain whose last dot is preceded
+     * by at least one character and followed by two to six ASCII letters. The expression backtracks
+     * over the domain to find that dot; the scan remembers the last one it passed instead.
+     */
+    static boolean isValidEmail(CharSequence email) {
+        int length = email.length();
+        int i = 0;
+        while (i < length && isLocalPartChar(email.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i == length || email.charAt(i) != '@') {
+            return false;
+        }
+        int domainStart = ++i;
+        int lastDot = -1;
+        for (; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                lastDot = i;
+            } else if (!isDomainChar(c)) {
+                return false;
+            }
+        }
+        if (lastDot <= domainStart) {
+            return false;
+        }
+        int topLevelDomainLength = length - lastDot - 1;
+        if (topLevelDomainLength < MIN_TOP_LEVEL_DOMAIN_LENGTH || topLevelDomainLength > MAX_TOP_LEVEL_DOMAIN_LENGTH) {
+            return false;
+        }
+        for (i = lastDot + 1; i < length; i++) {
+            if (!isAsciiLetter(email.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLocalPartChar(char c) {
+        return isAsciiLetterOrDigit(c) || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isDomainChar(char c) {
+        return isAsciiLetterOrDigit(c) || c == '-';
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.customer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Answers {@link #existsCustomerWithEmail(String)} from a {@link CustomerEmailFilter} when it can.
+ * Emails go into the filter before the write reaches the database, so the filter never misses a
+ * committed email, and again after it, for a rebuild that scanned the table before the commit.
+ */
+public class EmailFilteringCustomerDAO extends ForwardingCustomerDAO {
+    private final CustomerEmailFilter emailFilter;
+
+    public EmailFilteringCustomerDAO(CustomerDAO delegate, CustomerEmailFilter emailFilter) {
+        super(delegate);
+        this.emailFilter = emailFilter;
+    }
+
+    @Override
+    public boolean existsCustomerWithEmail(String email) {
+        if (!emailFilter.mightContain(email)) {
+            return false;
+        }
+        boolean exists = delegate.existsCustomerWithEmail(email);
+        if (!exists) {
+            emailFilter.recordFalsePositive();
+        }
+        return exists;
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        emailFilter.add(customer.getEmail());
+        try {
+            delegate.insertCustomer(customer);
+        } finally {
+            emailFilter.addCompleted(customer.getEmail());
+        }
+    }
+
+    @Override
+    public Optional<Integer> insertCustomerIfEmailFree(Customer customer) {
+        emailFilter.add(customer.getEmail());
+        try {
+            return delegate.insertCustomerIfEmailFree(customer);
+        } finally {
+            emailFilter.addCompleted(customer.getEmail());
+        }
+    }
+
+    @Override
+    public Set<String> insertCustomers(List<Customer> customers) {
+        customers.forEach(customer -> emailFilter.add(customer.getEmail()));
+        try {
+            return delegate.insertCustomers(customers);
+        } finally {
+            customers.forEach(customer -> emailFilter.addCompleted(customer.getEmail()));
+        }
+    }
+
+    @Override
+    public boolean removeCustomerById(Integer id) {
+        boolean removed = delegate.removeCustomerById(id);
+        if (removed) {
+            emailFilter.markStale();
+        }
+        return removed;
+    }
+
+    @Override
+    public int removeCustomersByIds(Collection<Integer> ids) {
+        int removed = delegate.removeCustomersByIds(ids);
+        emailFilter.markStale(removed);
+        return removed;
+    }
+
+    @Override
+    public void updateCustomer(Customer customer) {
+        emailFilter.add(customer.getEmail());
+        try {
+            delegate.updateCustomer(customer);
+        } finally {
+            emailFilter.addCompleted(customer.getEmail());
+        }
+        emailFilter.markStale();
+    }
+
+    @Override
+    public CustomerUpdateResult updateCustomerById(Integer id, CustomerUpdateRequest update) {
+        if (update.email() == null) {
+            return delegate.updateCustomerById(id, update);
+        }
+        emailFilter.add(update.email());
+        CustomerUpdateResult result;
+        try {
+            result = delegate.updateCustomerById(id, update);
+        } finally {
+            emailFilter.addCompleted(update.email());
+        }
+        if (result.status() == CustomerUpdateResult.Status.UPDATED) {
+            emailFilter.markStale();
+        }
+        return result;
+    }
+}
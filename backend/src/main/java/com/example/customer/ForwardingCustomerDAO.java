@@ -0,0 +1,136 @@
+package com.example.customer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Consumer;
+
+/**
+ * Base for {@link CustomerDAO} decorators: forwards every call to the wrapped DAO,
+ * so a decorator only overrides the operations it cares about.
+ */
+public abstract class ForwardingCustomerDAO implements CustomerDAO {
+    protected final CustomerDAO delegate;
+
+    protected ForwardingCustomerDAO(CustomerDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public List<Customer> selectCustomerByAge(Integer age) {
+        return delegate.selectCustomerByAge(age);
+    }
+
+    @Override
+    public List<Customer> selectCustomerPage(int afterId, int limit) {
+        return delegate.selectCustomerPage(afterId, limit);
+    }
+
+    @Override
+    public List<Customer> selectCustomerPageByAge(Integer age, int afterId, int limit) {
+        return delegate.selectCustomerPageByAge(age, afterId, limit);
+    }
+
+    @Override
+    public List<Customer> selectCustomerPageByAgeRange(int minAge, int maxAge, int afterId, int limit) {
+        return delegate.selectCustomerPageByAgeRange(minAge, maxAge, afterId, limit);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Integer id) {
+        return delegate.selectCustomerById(id);
+    }
+
+    @Override
+    public List<Customer> selectCustomerFieldsPage(int afterId, int limit, Set<CustomerField> fields) {
+        return delegate.selectCustomerFieldsPage(afterId, limit, fields);
+    }
+
+    @Override
+    public List<Customer> selectCustomerFieldsPageByAge(Integer age, int afterId, int limit, Set<CustomerField> fields) {
+        return delegate.selectCustomerFieldsPageByAge(age, afterId, limit, fields);
+    }
+
+    @Override
+    public List<Customer> selectCustomerFieldsPageByAgeRange(int minAge, int maxAge, int afterId, int limit,
+                                                             Set<CustomerField> fields) {
+        return delegate.selectCustomerFieldsPageByAgeRange(minAge, maxAge, afterId, limit, fields);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerFieldsById(Integer id, Set<CustomerField> fields) {
+        return delegate.selectCustomerFieldsById(id, fields);
+    }
+
+    @Override
+    public List<Customer> searchCustomers(String term, int limit) {
+        return delegate.searchCustomers(term, limit);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        delegate.insertCustomer(customer);
+    }
+
+    @Override
+    public Optional<Integer> insertCustomerIfEmailFree(Customer customer) {
+        return delegate.insertCustomerIfEmailFree(customer);
+    }
+
+    @Override
+    public Set<String> insertCustomers(List<Customer> customers) {
+        return delegate.insertCustomers(customers);
+    }
+
+    @Override
+    public boolean removeCustomerById(Integer id) {
+        return delegate.removeCustomerById(id);
+    }
+
+    @Override
+    public int removeCustomersByIds(Collection<Integer> ids) {
+        return delegate.removeCustomersByIds(ids);
+    }
+
+    @Override
+    public void updateCustomer(Customer customer) {
+        delegate.updateCustomer(customer);
+    }
+
+    @Override
+    public CustomerUpdateResult updateCustomerById(Integer id, CustomerUpdateRequest update) {
+        return delegate.updateCustomerById(id, update);
+    }
+
+    @Override
+    public boolean existsCustomerWithEmail(String email) {
+        return delegate.existsCustomerWithEmail(email);
+    }
+
+    @Override
+    public SortedMap<Integer, Long> countCustomersByAge() {
+        return delegate.countCustomersByAge();
+    }
+
+    @Override
+    public int reconcileCustomerCountsByAge() {
+        return delegate.reconcileCustomerCountsByAge();
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        delegate.forEachCustomer(action);
+    }
+
+    @Override
+    public void forEachCustomerEmail(Consumer<String> action) {
+        delegate.forEachCustomerEmail(action);
+    }
+}
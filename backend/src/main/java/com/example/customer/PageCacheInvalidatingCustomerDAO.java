@@ -0,0 +1,85 @@
+package com.example.customer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Drops the {@link CustomerPageCache} entries a write can change, after the delegate returned and
+ * also when it failed, as a failed statement may still have changed rows before the error.
+ */
+public class PageCacheInvalidatingCustomerDAO extends ForwardingCustomerDAO {
+    private final CustomerPageCache pageCache;
+
+    public PageCacheInvalidatingCustomerDAO(CustomerDAO delegate, CustomerPageCache pageCache) {
+        super(delegate);
+        this.pageCache = pageCache;
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        try {
+            delegate.insertCustomer(customer);
+        } finally {
+            pageCache.invalidateAge(customer.getAge());
+        }
+    }
+
+    @Override
+    public Optional<Integer> insertCustomerIfEmailFree(Customer customer) {
+        try {
+            return delegate.insertCustomerIfEmailFree(customer);
+        } finally {
+            pageCache.invalidateAge(customer.getAge());
+        }
+    }
+
+    @Override
+    public Set<String> insertCustomers(List<Customer> customers) {
+        try {
+            return delegate.insertCustomers(customers);
+        } finally {
+            customers.stream().map(Customer::getAge).distinct().forEach(pageCache::invalidateAge);
+        }
+    }
+
+    @Override
+    public boolean removeCustomerById(Integer id) {
+        try {
+            return delegate.removeCustomerById(id);
+        } finally {
+            pageCache.invalidateCustomers(Collections.singleton(id));
+        }
+    }
+
+    @Override
+    public int removeCustomersByIds(Collection<Integer> ids) {
+        try {
+            return delegate.removeCustomersByIds(ids);
+        } finally {
+            pageCache.invalidateCustomers(ids);
+        }
+    }
+
+    @Override
+    public void updateCustomer(Customer customer) {
+        try {
+            delegate.updateCustomer(customer);
+        } finally {
+            pageCache.invalidateCustomers(Collections.singleton(customer.getId()));
+            pageCache.invalidateAge(customer.getAge());
+        }
+    }
+
+    @Override
+    public CustomerUpdateResult updateCustomerById(Integer id, CustomerUpdateRequest update) {
+        try {
+            return delegate.updateCustomerById(id, update);
+        } finally {
+            pageCache.invalidateCustomers(Collections.singleton(id));
+            pageCache.invalidateAge(update.age());
+        }
+    }
+}
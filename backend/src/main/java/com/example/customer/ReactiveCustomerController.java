@@ -0,0 +1,89 @@
+package com.example.customer;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+
+/**
+ * The routes of {@link CustomerController} on WebFlux. Bulk registration and the stats endpoint are
+ * only served by the blocking stack.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveCustomerController {
+    private final ReactiveCustomerService customerService;
+
+    public ReactiveCustomerController(ReactiveCustomerService customerService) {
+        this.customerService = customerService;
+    }
+
+    @RequestMapping(
+            value = { "/customers", "/customers/" },
+            method = GET)
+    public Mono<CustomerPage> getCustomers(@RequestParam(value = "age", required = false) Integer age,
+                                           @RequestParam(value = "minAge", required = false) Integer minAge,
+                                           @RequestParam(value = "maxAge", required = false) Integer maxAge,
+                                           @RequestParam(value = "after", required = false) String after,
+                                           @RequestParam(value = "limit", required = false) Integer limit,
+                                           ServerWebExchange exchange) {
+        return customerService.getCustomers(age, minAge, maxAge, after, limit)
+                .filter(page -> !exchange.checkNotModified(CustomerETags.of(page)));
+    }
+
+    /**
+     * Each customer is written as its own line as soon as the connection can take it; the demand the
+     * socket signals is what pulls the next rows from the database.
+     */
+    @GetMapping(value = "/customers/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Customer> streamCustomers() {
+        return customerService.streamCustomers();
+    }
+
+    @PostMapping("/customers")
+    public Mono<ResponseEntity<Void>> addCustomer(@RequestBody CustomerRegistrationRequest request,
+                                                  ServerHttpRequest httpRequest) {
+        return customerService.addCustomer(request)
+                .map(id -> ResponseEntity.ok()
+                        .location(UriComponentsBuilder.fromUri(httpRequest.getURI())
+                                .path("/{customerId}")
+                                .buildAndExpand(id)
+                                .toUri())
+                        .build());
+    }
+
+    /**
+     * An empty result after a matching {@code If-None-Match} completes the 304 the exchange already set.
+     */
+    @GetMapping("/customers/{customerId}")
+    public Mono<Customer> getCustomerById(@PathVariable("customerId") Integer customerId,
+                                          ServerWebExchange exchange) {
+        return customerService.getCustomerById(customerId)
+                .filter(customer -> !exchange.checkNotModified(CustomerETags.of(customer)));
+    }
+
+    @DeleteMapping(value = "/customers", params = "ids")
+    public Mono<BulkRemovalResult> removeCustomers(@RequestParam("ids") List<Integer> ids) {
+        return customerService.removeCustomersByIds(ids);
+    }
+
+    @DeleteMapping("/customers/{customerId}")
+    public Mono<Void> removeCustomerById(@PathVariable("customerId") Integer customerId) {
+        return customerService.removeCustomerById(customerId);
+    }
+
+    @PostMapping("/customers/{customerId}")
+    public Mono<Customer> updateCustomerById(@PathVariable("customerId") Integer customerId,
+                                             @RequestBody CustomerUpdateRequest request) {
+        return customerService.updateCustomerById(customerId, request);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.customer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Non-blocking counterpart of {@link CustomerDAO} for the reactive profile. Nothing runs until the
+ * returned publisher is subscribed to.
+ */
+public interface ReactiveCustomerDAO {
+
+    /**
+     * Every customer in id order, read as the subscriber requests them rather than all at once.
+     */
+    Flux<Customer> selectAllCustomers();
+    Flux<Customer> selectCustomerPage(int afterId, int limit);
+    Flux<Customer> selectCustomerPageByAge(Integer age, int afterId, int limit);
+
+    /**
+     * Keyset page, in id order, of the customers aged {@code minAge} to {@code maxAge} inclusive.
+     */
+    Flux<Customer> selectCustomerPageByAgeRange(int minAge, int maxAge, int afterId, int limit);
+    Mono<Customer> selectCustomerById(Integer id);
+
+    /**
+     * Inserts the customer unless its email is taken, atomically and in one statement.
+     *
+     * @return the id of the new customer, or empty when the email is taken
+     */
+    Mono<Integer> insertCustomerIfEmailFree(Customer customer);
+
+    /**
+     * @return whether a customer with this id existed and was removed
+     */
+    Mono<Boolean> removeCustomerById(Integer id);
+
+    /**
+     * Removes every customer whose id is in {@code ids} in one statement; unknown ids are ignored.
+     *
+     * @return the number of customers removed
+     */
+    Mono<Integer> removeCustomersByIds(Collection<Integer> ids);
+
+    /**
+     * Applies the non-null fields of {@code update} in one statement, writing only the columns that change.
+     */
+    Mono<CustomerUpdateResult> updateCustomerById(Integer id, CustomerUpdateRequest update);
+}
@@ -0,0 +1,107 @@
+package com.example.customer;
+
+import com.example.exception.CreateCustomerInvalidatedException;
+import com.example.exception.EmailTakenException;
+import com.example.exception.ResourceNotFoundException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link CustomerService} for the reactive routes: the same rules and errors, applied to publishers.
+ * Invalid requests still fail when the method is called, before anything is subscribed.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCustomerService {
+    private final ReactiveCustomerDAO customerDAO;
+
+    public ReactiveCustomerService(ReactiveCustomerDAO customerDAO) {
+        this.customerDAO = customerDAO;
+    }
+
+    /**
+     * @see CustomerService#getCustomers(Integer, Integer, Integer, String, Integer)
+     */
+    public Mono<CustomerPage> getCustomers(Integer age, Integer minAge, Integer maxAge, String after, Integer limit) {
+        int pageSize = CustomerService.resolvePageSize(limit);
+        int afterId = CustomerCursor.decode(after);
+        CustomerService.checkAgeFilter(age, minAge, maxAge);
+        // fetch one extra row to know whether there is a next page
+        Flux<Customer> rows;
+        if (age != null) {
+            rows = customerDAO.selectCustomerPageByAge(age, afterId, pageSize + 1);
+        } else if (minAge != null || maxAge != null) {
+            rows = customerDAO.selectCustomerPageByAgeRange(
+                    minAge == null ? 0 : minAge,
+                    maxAge == null ? Integer.MAX_VALUE : maxAge,
+                    afterId,
+                    pageSize + 1
+            );
+        } else {
+            rows = customerDAO.selectCustomerPage(afterId, pageSize + 1);
+        }
+        return rows.collectList().map(page -> CustomerPage.of(page, pageSize));
+    }
+
+    public Flux<Customer> streamCustomers() {
+        return customerDAO.selectAllCustomers();
+    }
+
+    public Mono<Customer> getCustomerById(Integer id) {
+        return customerDAO.selectCustomerById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Customer with id [%s] is not found".formatted(id))));
+    }
+
+    /**
+     * @return the id of the new customer
+     */
+    public Mono<Integer> addCustomer(CustomerRegistrationRequest request) {
+        int violations = CustomerValidator.validate(request);
+        if (violations != 0) {
+            throw new CreateCustomerInvalidatedException(CustomerValidator.describe(violations));
+        }
+        Customer customer = new Customer(
+                request.name(), request.email(), request.age()
+        );
+        return customerDAO.insertCustomerIfEmailFree(customer)
+                .switchIfEmpty(Mono.error(() -> new EmailTakenException("Email already taken")));
+    }
+
+    public Mono<Void> removeCustomerById(Integer id) {
+        return customerDAO.removeCustomerById(id)
+                .flatMap(removed -> removed
+                        ? Mono.<Void>empty()
+                        : Mono.error(new ResourceNotFoundException("Customer with the requested id is not found")));
+    }
+
+    /**
+     * @see CustomerService#removeCustomersByIds(List)
+     */
+    public Mono<BulkRemovalResult> removeCustomersByIds(List<Integer> ids) {
+        Set<Integer> distinctIds = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (id != null) {
+                distinctIds.add(id);
+            }
+        }
+        if (distinctIds.isEmpty()) {
+            return Mono.just(new BulkRemovalResult(0, 0));
+        }
+        return customerDAO.removeCustomersByIds(distinctIds)
+                .map(removed -> new BulkRemovalResult(distinctIds.size(), removed));
+    }
+
+    /**
+     * @see CustomerService#updateCustomerById(Integer, CustomerUpdateRequest)
+     */
+    public Mono<Customer> updateCustomerById(Integer id, CustomerUpdateRequest request) {
+        return customerDAO.updateCustomerById(id, CustomerService.normalizeUpdate(request))
+                .map(result -> CustomerService.updatedCustomer(id, result));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Structured log of the SQL statements the JDBC DAO runs: statement id, duration, rows affected and
+ * whether it was slow, as key-value pairs. Statements at or above {@code slowThreshold} are always
+ * logged at WARN; faster ones are sampled at {@code sampleRate} and logged at INFO.
+ * <p>
+ * logback-spring.xml hands this logger to a non-blocking async appender, so a request thread only
+ * pays for queueing the event; when the queue fills up, sampled INFO events are dropped first.
+ */
+public class StatementLog {
+    private static final Logger log = LoggerFactory.getLogger(StatementLog.class);
+
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+
+    public StatementLog(Duration slowThreshold, double sampleRate) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * @param startNanos {@link System#nanoTime()} taken before the statement ran
+     */
+    public void record(String statementId, long startNanos, int rows) {
+        long durationNanos = System.nanoTime() - startNanos;
+        boolean slow = durationNanos >= slowThresholdNanos;
+        if (slow) {
+            if (log.isWarnEnabled()) {
+                log.atWarn()
+                        .addKeyValue("statement", statementId)
+                        .addKeyValue("durationMs", durationNanos / 1_000_000.0)
+                        .addKeyValue("rows", rows)
+                        .addKeyValue("slow", true)
+                        .log("Slow statement");
+            }
+        } else if (log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.atInfo()
+                    .addKeyValue("statement", statementId)
+                    .addKeyValue("durationMs", durationNanos / 1_000_000.0)
+                    .addKeyValue("rows", rows)
+                    .addKeyValue("slow", false)
+                    .log("Statement");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every {@link CustomerDAO} call as {@code customer.dao}, tagged by method, implementation and
+ * outcome ({@code success} or {@code error}).
+ * <p>
+ * A dynamic proxy rather than a {@link ForwardingCustomerDAO}, so methods added to the interface are
+ * timed without touching this class. The timers are looked up once per method when the proxy is
+ * built, leaving a map lookup, two clock reads and a histogram update per call.
+ */
+final class TimedCustomerDAO implements InvocationHandler {
+    static final String METRIC_NAME = "customer.dao";
+
+    private final CustomerDAO delegate;
+    private final Map<Method, Timers> timers = new HashMap<>();
+
+    private TimedCustomerDAO(CustomerDAO delegate, String implementation, MeterRegistry registry) {
+        this.delegate = delegate;
+        for (Method method : CustomerDAO.class.getMethods()) {
+            timers.put(method, new Timers(
+                    timer(registry, method, implementation, "success"),
+                    timer(registry, method, implementation, "error")
+            ));
+        }
+    }
+
+    static CustomerDAO wrap(CustomerDAO delegate, String implementation, MeterRegistry registry) {
+        return (CustomerDAO) Proxy.newProxyInstance(
+                CustomerDAO.class.getClassLoader(),
+                new Class<?>[] { CustomerDAO.class },
+                new TimedCustomerDAO(delegate, implementation, registry)
+        );
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Timers methodTimers = timers.get(method);
+        if (methodTimers == null) {
+            // equals, hashCode and toString
+            return method.invoke(delegate, args);
+        }
+        long start = System.nanoTime();
+        try {
+            Object result = method.invoke(delegate, args);
+            methodTimers.success().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (InvocationTargetException e) {
+            methodTimers.error().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e.getCause();
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, Method method, String implementation, String outcome) {
+        return Timer.builder(METRIC_NAME)
+                .description("Calls on the customer DAO")
+                .tag("method", method.getName())
+                .tag("implementation", implementation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                // the in-memory DAOs answer in microseconds
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .register(registry);
+    }
+
+    private record Timers(Timer success, Timer error) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+/**
+ * One change to a customer, as appended to customer_outbox by the database.
+ *
+ * @param id position in the outbox; events of one customer are ordered by it
+ * @param customer the customer after the change as a JSON object, or null for deletes
+ */
+public record CustomerChangeEvent(
+        long id,
+        int customerId,
+        Operation operation,
+        @JsonRawValue String customer,
+        Instant createdAt
+) {
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.outbox;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent published events in memory, for tests and local runs. Not durable, so the
+ * outbox rows stay.
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+    private final int capacity;
+    private final Deque<CustomerChangeEvent> events = new ArrayDeque<>();
+
+    public InMemoryOutboxSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(List<CustomerChangeEvent> batch) {
+        for (CustomerChangeEvent event : batch) {
+            if (events.size() == capacity) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    @Override
+    public boolean durable() {
+        return false;
+    }
+
+    public synchronized List<CustomerChangeEvent> events() {
+        return List.copyOf(events);
+    }
+
+    public synchronized void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.outbox;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The switch in customer_outbox_capture that makes the customer triggers append change events. Off
+ * in the database until the application sets it, so rows only pile up while a publisher drains them.
+ */
+public class OutboxCapture {
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxCapture(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void set(boolean enabled) {
+        jdbcTemplate.update("UPDATE customer_outbox_capture SET enabled = ?", enabled);
+    }
+}
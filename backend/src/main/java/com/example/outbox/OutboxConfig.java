@@ -0,0 +1,32 @@
+package com.example.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+
+    /**
+     * Applied on every start, so turning the outbox off also stops the triggers from capturing.
+     */
+    @Bean
+    public OutboxCapture outboxCapture(JdbcTemplate jdbcTemplate, OutboxProperties properties) {
+        OutboxCapture outboxCapture = new OutboxCapture(jdbcTemplate);
+        outboxCapture.set(properties.enabled());
+        return outboxCapture;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "customer.outbox.enabled", havingValue = "true")
+    public OutboxSink outboxSink(OutboxProperties properties, ObjectMapper objectMapper) {
+        return switch (properties.sink()) {
+            case FILE -> new FileOutboxSink(properties.file(), objectMapper);
+            case MEMORY -> new InMemoryOutboxSink(properties.memoryCapacity());
+        };
+    }
+}
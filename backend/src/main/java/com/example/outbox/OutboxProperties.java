@@ -0,0 +1,37 @@
+package com.example.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * @param enabled off by default: the triggers only capture changes while a publisher drains them
+ * @param sink {@code file} for a real deployment; {@code memory}, for tests and local runs, is not
+ *             durable, so it marks the rows it received instead of deleting them
+ * @param file where the file sink appends events; must be absolute, on storage that outlives the instance
+ * @param memoryCapacity most recent events the memory sink keeps
+ * @param batchSize events read, published and deleted per transaction
+ * @param pollInterval pause between drains once the outbox is empty
+ */
+@ConfigurationProperties(prefix = "customer.outbox")
+public record OutboxProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("memory") Sink sink,
+        Path file,
+        @DefaultValue("10000") int memoryCapacity,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("PT1S") Duration pollInterval
+) {
+    public OutboxProperties {
+        if (sink == Sink.FILE && (file == null || !file.isAbsolute())) {
+            throw new IllegalArgumentException(
+                    "customer.outbox.file must be an absolute path when customer.outbox.sink is file, was " + file);
+        }
+    }
+
+    public enum Sink {
+        FILE, MEMORY
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains customer_outbox into the {@link OutboxSink}, oldest first, in batches.
+ * <p>
+ * Each batch is read, published and deleted in one transaction, so an event is only removed after
+ * the sink accepted it; a failure or crash in between leaves the batch in place to be published
+ * again (at-least-once). Rows handed to a sink that is not {@link OutboxSink#durable() durable} are
+ * marked published instead of deleted: that sink does not get them again, even after a restart, while
+ * a durable sink publishes every row, marked or not. Marking the ids of the batch rather than keeping
+ * a high-water mark means an event whose transaction commits after a later id was published is still
+ * picked up. A transaction-scoped advisory lock makes one
+ * instance the publisher at a time, which keeps the order across instances. Publishes
+ * {@code customer.outbox.published} (throughput) and {@code customer.outbox.lag}, the age of the
+ * oldest unpublished event.
+ */
+@Component
+@ConditionalOnProperty(name = "customer.outbox.enabled", havingValue = "true")
+public class OutboxPublisher {
+    private static final Logger log = LoggerFactory.getLogger(OutboxPublisher.class);
+
+    private static final RowMapper<CustomerChangeEvent> EVENT_ROW_MAPPER = (rs, rowNum) -> new CustomerChangeEvent(
+            rs.getLong("id"),
+            rs.getInt("customer_id"),
+            CustomerChangeEvent.Operation.valueOf(rs.getString("operation")),
+            rs.getString("customer"),
+            rs.getTimestamp("created_at").toInstant()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxSink sink;
+    private final int batchSize;
+    // a sink that is not durable only gets the rows it has not been handed yet
+    private final String pending;
+    private final Counter published;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxPublisher(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           OutboxSink sink,
+                           OutboxProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sink = sink;
+        this.batchSize = properties.batchSize();
+        this.pending = sink.durable() ? "TRUE" : "published_at IS NULL";
+        this.published = Counter.builder("customer.outbox.published")
+                .description("Customer change events handed to the outbox sink")
+                .register(meterRegistry);
+        TimeGauge.builder("customer.outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::doubleValue)
+                .description("Age of the oldest customer change event not published yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes batches until the outbox is drained, then refreshes the lag.
+     */
+    @Scheduled(fixedDelayString = "${customer.outbox.poll-interval:PT1S}")
+    public void drain() {
+        try {
+            int batch;
+            do {
+                batch = publishBatch();
+            } while (batch == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish customer change events, retrying on the next poll", e);
+        } finally {
+            updateLag();
+        }
+    }
+
+    /**
+     * @return the number of events published, 0 when the outbox is empty or another instance holds the lock
+     */
+    int publishBatch() {
+        Integer count = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(hashtext('customer_outbox'))", Boolean.class);
+            if (!Boolean.TRUE.equals(locked)) {
+                return 0;
+            }
+            var sql = """
+                    SELECT id, customer_id, operation, customer::text AS customer, created_at
+                    FROM customer_outbox
+                    WHERE %s
+                    ORDER BY id
+                    LIMIT ?
+                    """.formatted(pending);
+            List<CustomerChangeEvent> events = jdbcTemplate.query(sql, EVENT_ROW_MAPPER, batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            try {
+                sink.publish(events);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Object[] ids = events.stream().map(CustomerChangeEvent::id).toArray();
+            String acknowledge = sink.durable()
+                    ? "DELETE FROM customer_outbox WHERE id = ANY(?)"
+                    : "UPDATE customer_outbox SET published_at = now() WHERE id = ANY(?)";
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(acknowledge);
+                ps.setArray(1, con.createArrayOf("bigint", ids));
+                return ps;
+            });
+            return events.size();
+        });
+        int publishedEvents = count == null ? 0 : count;
+        published.increment(publishedEvents);
+        return publishedEvents;
+    }
+
+    private void updateLag() {
+        try {
+            List<Timestamp> oldest = jdbcTemplate.queryForList(
+                    "SELECT created_at FROM customer_outbox WHERE " + pending + " ORDER BY id LIMIT 1",
+                    Timestamp.class);
+            lagMillis.set(oldest.isEmpty()
+                    ? 0
+                    : Math.max(0, Duration.between(oldest.get(0).toInstant(), Instant.now()).toMillis()));
+        } catch (RuntimeException e) {
+            log.warn("Could not measure the customer outbox lag", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.outbox;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where {@link OutboxPublisher} delivers customer change events.
+ * <p>
+ * Delivery is at least once: a batch is only removed from the outbox after {@link #publish(List)}
+ * returned, so a crash in between delivers it again. Events carry their outbox id for deduplication.
+ */
+public interface OutboxSink {
+
+    /**
+     * Accepts a batch of events in outbox order. Must not return before the batch is stored durably.
+     */
+    void publish(List<CustomerChangeEvent> events) throws IOException;
+
+    /**
+     * Whether a batch accepted by {@link #publish(List)} survives a restart of this instance. Only then
+     * does the publisher delete it from the outbox.
+     */
+    default boolean durable() {
+        return true;
+    }
+}
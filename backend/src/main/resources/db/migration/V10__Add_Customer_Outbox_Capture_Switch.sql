@@ -0,0 +1,50 @@
+-- Whether the triggers append change events at all. Off until the application turns it on at startup
+-- from customer.outbox.enabled, so a deployment without a publisher does not fill customer_outbox.
+CREATE TABLE customer_outbox_capture (
+    -- a single row
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    enabled BOOLEAN NOT NULL
+);
+INSERT INTO customer_outbox_capture (enabled) VALUES (FALSE);
+
+-- Set for events handed to a sink that is not durable: they are not handed to it again, but stay for a
+-- durable sink, which publishes and deletes every row whether marked or not.
+ALTER TABLE customer_outbox ADD COLUMN published_at TIMESTAMPTZ;
+CREATE INDEX customer_outbox_unpublished_idx ON customer_outbox (id) WHERE published_at IS NULL;
+
+CREATE OR REPLACE FUNCTION customer_outbox_after_insert() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF NOT (SELECT enabled FROM customer_outbox_capture) THEN
+        RETURN NULL;
+    END IF;
+    INSERT INTO customer_outbox (customer_id, operation, customer)
+    SELECT id, 'INSERT', to_jsonb(inserted_rows) FROM inserted_rows ORDER BY id;
+    RETURN NULL;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION customer_outbox_after_delete() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF NOT (SELECT enabled FROM customer_outbox_capture) THEN
+        RETURN NULL;
+    END IF;
+    INSERT INTO customer_outbox (customer_id, operation)
+    SELECT id, 'DELETE' FROM deleted_rows ORDER BY id;
+    RETURN NULL;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION customer_outbox_after_update() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF NOT (SELECT enabled FROM customer_outbox_capture) THEN
+        RETURN NULL;
+    END IF;
+    INSERT INTO customer_outbox (customer_id, operation, customer)
+    SELECT n.id, 'UPDATE', to_jsonb(n)
+    FROM new_rows n
+    JOIN old_rows o ON o.id = n.id
+    WHERE o IS DISTINCT FROM n
+    ORDER BY n.id;
+    RETURN NULL;
+END
+$$;
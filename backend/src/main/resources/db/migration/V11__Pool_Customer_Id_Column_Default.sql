@@ -0,0 +1,28 @@
+-- The column default called nextval directly, so every row inserted through it (JDBC, COPY, R2DBC)
+-- used up a whole block of 50 ids of the INTEGER key space. It now hands out the block behind each
+-- nextval one id at a time, like Hibernate's pooled optimizer does for JPA: the block of nextval v is
+-- v - 49 .. v. The position within the block is kept per connection in session settings; a rolled
+-- back transaction restores them, which only hands out again ids whose rows were rolled back.
+CREATE FUNCTION next_customer_id() RETURNS INTEGER LANGUAGE plpgsql AS $$
+DECLARE
+    -- matches INCREMENT BY 50 (V3) and allocationSize on Customer.id
+    block_size CONSTANT INTEGER := 50;
+    next_id INTEGER := nullif(current_setting('customer.next_id', true), '')::INTEGER;
+    block_end INTEGER := nullif(current_setting('customer.id_block_end', true), '')::INTEGER;
+BEGIN
+    IF next_id IS NULL OR block_end IS NULL OR next_id > block_end THEN
+        block_end := nextval('customer_id_sequence');
+        next_id := greatest(block_end - block_size + 1, 1);
+        PERFORM set_config('customer.id_block_end', block_end::TEXT, false);
+    END IF;
+    PERFORM set_config('customer.next_id', (next_id + 1)::TEXT, false);
+    RETURN next_id;
+END
+$$;
+
+-- Hibernate treats a first nextval of 1 as the start of its first block and reads one more value,
+-- which another session could take in between; start past it on a sequence never used.
+SELECT nextval('customer_id_sequence') FROM pg_sequences
+WHERE schemaname = current_schema() AND sequencename = 'customer_id_sequence' AND last_value IS NULL;
+
+ALTER TABLE customer ALTER COLUMN id SET DEFAULT next_customer_id();
@@ -0,0 +1,3 @@
+-- Hibernate's pooled optimizer reserves 50 ids per nextval, matching allocationSize on Customer.id.
+-- The column default still calls nextval, so ids written through it stay outside any pooled block.
+ALTER SEQUENCE customer_id_sequence INCREMENT BY 50;
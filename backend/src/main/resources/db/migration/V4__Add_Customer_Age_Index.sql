@@ -0,0 +1,3 @@
+-- Serves WHERE age = ? AND id > ? ORDER BY id straight from the index, and age ranges as an index range scan.
+-- CONCURRENTLY keeps writes flowing while the index builds; Flyway runs it outside a transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_age_id_idx ON customer (age, id);
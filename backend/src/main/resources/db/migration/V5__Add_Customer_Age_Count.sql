@@ -0,0 +1,73 @@
+-- Customers per age, kept in step with customer by statement-level triggers so GET /customers/stats
+-- reads a handful of rows instead of the whole table. Ages that drop to zero keep a row with 0.
+CREATE TABLE customer_age_count (
+    age INT PRIMARY KEY,
+    customers BIGINT NOT NULL
+);
+
+-- no writes may slip between the backfill and the triggers
+LOCK TABLE customer IN SHARE ROW EXCLUSIVE MODE;
+
+INSERT INTO customer_age_count (age, customers)
+SELECT age, count(*) FROM customer GROUP BY age;
+
+CREATE FUNCTION customer_age_count_after_insert() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_age_count (age, customers)
+    SELECT age, count(*) FROM inserted_rows GROUP BY age
+    ON CONFLICT (age) DO UPDATE SET customers = customer_age_count.customers + EXCLUDED.customers;
+    RETURN NULL;
+END
+$$;
+
+CREATE FUNCTION customer_age_count_after_delete() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_age_count (age, customers)
+    SELECT age, -count(*) FROM deleted_rows GROUP BY age
+    ON CONFLICT (age) DO UPDATE SET customers = customer_age_count.customers + EXCLUDED.customers;
+    RETURN NULL;
+END
+$$;
+
+-- transition tables cannot be combined with UPDATE OF age, so unchanged ages are filtered out here
+CREATE FUNCTION customer_age_count_after_update() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_age_count (age, customers)
+    SELECT age, sum(delta)
+    FROM (
+        SELECT age, -1 AS delta FROM old_rows
+        UNION ALL
+        SELECT age, 1 AS delta FROM new_rows
+    ) changes
+    GROUP BY age
+    HAVING sum(delta) <> 0
+    ON CONFLICT (age) DO UPDATE SET customers = customer_age_count.customers + EXCLUDED.customers;
+    RETURN NULL;
+END
+$$;
+
+CREATE FUNCTION customer_age_count_after_truncate() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    UPDATE customer_age_count SET customers = 0;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER customer_age_count_insert
+    AFTER INSERT ON customer
+    REFERENCING NEW TABLE AS inserted_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_age_count_after_insert();
+
+CREATE TRIGGER customer_age_count_delete
+    AFTER DELETE ON customer
+    REFERENCING OLD TABLE AS deleted_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_age_count_after_delete();
+
+CREATE TRIGGER customer_age_count_update
+    AFTER UPDATE ON customer
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_age_count_after_update();
+
+CREATE TRIGGER customer_age_count_truncate
+    AFTER TRUNCATE ON customer
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_age_count_after_truncate();
@@ -0,0 +1,55 @@
+-- Change events for customers, appended by statement-level triggers in the transaction of the write
+-- itself, whichever DAO made it. OutboxPublisher hands them to the configured sink in id order and
+-- deletes them once the sink accepted them.
+CREATE TABLE customer_outbox (
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    customer_id INT NOT NULL,
+    operation TEXT NOT NULL CHECK (operation IN ('INSERT', 'UPDATE', 'DELETE')),
+    -- the row after the change; null for deletes
+    customer JSONB,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE FUNCTION customer_outbox_after_insert() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_outbox (customer_id, operation, customer)
+    SELECT id, 'INSERT', to_jsonb(inserted_rows) FROM inserted_rows ORDER BY id;
+    RETURN NULL;
+END
+$$;
+
+CREATE FUNCTION customer_outbox_after_delete() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_outbox (customer_id, operation)
+    SELECT id, 'DELETE' FROM deleted_rows ORDER BY id;
+    RETURN NULL;
+END
+$$;
+
+-- rows written back unchanged (a full-row UPDATE with the same values) are not events
+CREATE FUNCTION customer_outbox_after_update() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_outbox (customer_id, operation, customer)
+    SELECT n.id, 'UPDATE', to_jsonb(n)
+    FROM new_rows n
+    JOIN old_rows o ON o.id = n.id
+    WHERE o IS DISTINCT FROM n
+    ORDER BY n.id;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER customer_outbox_insert
+    AFTER INSERT ON customer
+    REFERENCING NEW TABLE AS inserted_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_outbox_after_insert();
+
+CREATE TRIGGER customer_outbox_delete
+    AFTER DELETE ON customer
+    REFERENCING OLD TABLE AS deleted_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_outbox_after_delete();
+
+CREATE TRIGGER customer_outbox_update
+    AFTER UPDATE ON customer
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_outbox_after_update();
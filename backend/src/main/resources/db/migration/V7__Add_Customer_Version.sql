@@ -0,0 +1,4 @@
+-- Row version for optimistic locking (JPA @Version) and the ETags of the customer endpoints. Writers
+-- bump it whenever they change the row. A constant default only touches the catalog, so this does
+-- not rewrite the table.
+ALTER TABLE customer ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,4 @@
+-- Trigram matching and similarity for the customer search. pg_trgm is a trusted extension, so the
+-- database owner can create it. Kept apart from V9 because Flyway will not mix transactional and
+-- non-transactional statements in one migration.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,5 @@
+-- Serve the customer search: name/email ILIKE '%term%' and the similarity operator % as bitmap index
+-- scans on either column, so type-ahead lookups do not scan the table.
+-- CONCURRENTLY keeps writes flowing while the indexes build; Flyway runs it outside a transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_name_trgm_idx ON customer USING gin (name gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_email_trgm_idx ON customer USING gin (email gin_trgm_ops);
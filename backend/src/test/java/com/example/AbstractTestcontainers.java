@@ -2,6 +2,7 @@ package com.example;
 
 import com.github.javafaker.Faker;
 import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
 import org.junit.jupiter.api.BeforeAll;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -12,17 +13,26 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import javax.sql.DataSource;
+import java.util.Map;
 
 @Testcontainers
 public abstract class AbstractTestcontainers {
     @BeforeAll
     static void beforeAll() {
-        Flyway flyway = Flyway.configure().dataSource(
-                postgreSQLContainer.getJdbcUrl(),
-                postgreSQLContainer.getUsername(),
-                postgreSQLContainer.getPassword()
-        ).load();
-        flyway.migrate();
+        flyway().load().migrate();
+    }
+
+    /**
+     * Flyway against the container, configured like {@code spring.flyway} in application.yml.
+     */
+    protected static FluentConfiguration flyway() {
+        return Flyway.configure()
+                .dataSource(
+                        postgreSQLContainer.getJdbcUrl(),
+                        postgreSQLContainer.getUsername(),
+                        postgreSQLContainer.getPassword()
+                )
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"));
     }
 
     @Container
@@ -0,0 +1,74 @@
+package com.example;
+
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Applies the migrations to a customer table that already has rows, as they run against production.
+ * CREATE INDEX CONCURRENTLY (V4, V9) waits for every older transaction, so with Flyway's transactional
+ * lock it would wait on Flyway's own lock transaction and never finish.
+ */
+class FlywayMigrationTest extends AbstractTestcontainers {
+    private static final String DATABASE = "migration_test";
+    private static final int CUSTOMERS = 10_000;
+
+    private final JdbcTemplate admin = getJdbcTemplate();
+    private String url;
+
+    @BeforeEach
+    void setUp() {
+        admin.execute("DROP DATABASE IF EXISTS " + DATABASE);
+        admin.execute("CREATE DATABASE " + DATABASE);
+        url = postgreSQLContainer.getJdbcUrl()
+                .replace("/" + postgreSQLContainer.getDatabaseName(), "/" + DATABASE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        admin.execute("DROP DATABASE IF EXISTS " + DATABASE + " WITH (FORCE)");
+    }
+
+    @Test
+    void buildsTheConcurrentIndexesOnAPopulatedTable() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                url, postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword()));
+        migrate("3");
+        jdbcTemplate.update("""
+                INSERT INTO customer(name, email, age)
+                SELECT 'Customer ' || g, 'customer' || g || '@example.com', 20 + g % 50
+                FROM generate_series(1, ?) g
+                """, CUSTOMERS);
+
+        MigrateResult result = assertTimeoutPreemptively(Duration.ofMinutes(2), () -> migrate("latest"));
+
+        assertThat(result.success).isTrue();
+        assertThat(result.migrations).extracting(migration -> migration.version)
+                .contains("4", "9");
+        assertThat(jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_index i
+                JOIN pg_class c ON c.oid = i.indexrelid
+                WHERE i.indisvalid
+                  AND c.relname IN ('customer_age_id_idx', 'customer_name_trgm_idx', 'customer_email_trgm_idx')
+                """, String.class))
+                .containsExactlyInAnyOrder("customer_age_id_idx", "customer_name_trgm_idx", "customer_email_trgm_idx");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM customer", Integer.class)).isEqualTo(CUSTOMERS);
+    }
+
+    private MigrateResult migrate(String target) {
+        return flyway()
+                .dataSource(url, postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword())
+                .target(target)
+                .load()
+                .migrate();
+    }
+}
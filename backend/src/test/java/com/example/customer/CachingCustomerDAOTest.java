@@ -0,0 +1,120 @@
+package com.example.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingCustomerDAOTest {
+
+    private CachingCustomerDAO underTest;
+    @Mock CustomerDAO customerDAO;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CachingCustomerDAO(customerDAO, 1024 * 1024, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void selectCustomerByIdReadsThrough() {
+        Integer id = 1;
+        Customer customer = new Customer(id, "foo", "foo@bar.com", 30);
+        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+
+        assertThat(underTest.selectCustomerById(id)).contains(customer);
+        assertThat(underTest.selectCustomerById(id)).contains(customer);
+        verify(customerDAO, times(1)).selectCustomerById(id);
+    }
+
+    @Test
+    void selectCustomerByIdDoesNotCacheMisses() {
+        Integer id = 1;
+        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.empty());
+
+        assertThat(underTest.selectCustomerById(id)).isEmpty();
+        assertThat(underTest.selectCustomerById(id)).isEmpty();
+        verify(customerDAO, times(2)).selectCustomerById(id);
+    }
+
+    @Test
+    void selectCustomerByIdRethrowsAndDoesNotCacheFailures() {
+        Integer id = 1;
+        Customer customer = new Customer(id, "foo", "foo@bar.com", 30);
+        when(customerDAO.selectCustomerById(id))
+                .thenThrow(new IllegalStateException("boom"))
+                .thenReturn(Optional.of(customer));
+
+        assertThatThrownBy(() -> underTest.selectCustomerById(id)).isInstanceOf(IllegalStateException.class);
+        assertThat(underTest.selectCustomerById(id)).contains(customer);
+    }
+
+    @Test
+    void selectCustomerByIdReturnsCopies() {
+        Integer id = 1;
+        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(new Customer(id, "foo", "foo@bar.com", 30)));
+
+        underTest.selectCustomerById(id).orElseThrow().setName("bar");
+        assertThat(underTest.selectCustomerById(id)).get().extracting(Customer::getName).isEqualTo("foo");
+    }
+
+    @Test
+    void updateCustomerInvalidates() {
+        Integer id = 1;
+        Customer customer = new Customer(id, "foo", "foo@bar.com", 30);
+        Customer updated = new Customer(id, "bar", "foo@bar.com", 30);
+        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer), Optional.of(updated));
+
+        underTest.selectCustomerById(id);
+        underTest.updateCustomer(updated);
+        assertThat(underTest.selectCustomerById(id)).contains(updated);
+        verify(customerDAO).updateCustomer(updated);
+    }
+
+    @Test
+    void removeCustomerByIdInvalidates() {
+        Integer id = 1;
+        when(customerDAO.selectCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "foo", "foo@bar.com", 30)), Optional.empty());
+
+        underTest.selectCustomerById(id);
+        underTest.removeCustomerById(id);
+        assertThat(underTest.selectCustomerById(id)).isEmpty();
+        verify(customerDAO).removeCustomerById(id);
+    }
+
+    @Test
+    void removeCustomersByIdsInvalidates() {
+        Integer id = 1;
+        when(customerDAO.selectCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "foo", "foo@bar.com", 30)), Optional.empty());
+
+        underTest.selectCustomerById(id);
+        underTest.removeCustomersByIds(List.of(id, 2));
+        assertThat(underTest.selectCustomerById(id)).isEmpty();
+    }
+
+    @Test
+    void bindToPublishesHitsAndMisses() {
+        Integer id = 1;
+        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(new Customer(id, "foo", "foo@bar.com", 30)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        underTest.bindTo(registry);
+
+        underTest.selectCustomerById(id);
+        underTest.selectCustomerById(id);
+
+        assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+}
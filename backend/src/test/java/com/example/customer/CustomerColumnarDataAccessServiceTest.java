@@ -0,0 +1,150 @@
+package com.example.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+class CustomerColumnarDataAccessServiceTest {
+    private CustomerColumnarDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerColumnarDataAccessService();
+    }
+
+    @Test
+    void insertAndSelectCustomerById() {
+        Integer id = underTest.insertCustomerIfEmailFree(new Customer("Zo\u00eb", "zo\u00eb@bar.com", 30)).orElseThrow();
+
+        assertThat(underTest.selectCustomerById(id)).contains(new Customer(id, "Zo\u00eb", "zo\u00eb@bar.com", 30));
+        assertThat(underTest.selectCustomerById(id + 1)).isEmpty();
+        assertThat(underTest.existsCustomerWithEmail("zo\u00eb@bar.com")).isTrue();
+        assertThat(underTest.existsCustomerWithEmail("zoe@bar.com")).isFalse();
+    }
+
+    @Test
+    void insertCustomerRejectsTakenEmail() {
+        underTest.insertCustomer(new Customer("foo", "foo@bar.com", 30));
+
+        assertThat(underTest.insertCustomerIfEmailFree(new Customer("bar", "foo@bar.com", 31))).isEmpty();
+        assertThatThrownBy(() -> underTest.insertCustomer(new Customer("bar", "foo@bar.com", 31)))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void insertCustomersReportsTakenEmails() {
+        underTest.insertCustomer(new Customer("foo", "foo@bar.com", 30));
+
+        var taken = underTest.insertCustomers(List.of(
+                new Customer("bar", "bar@bar.com", 30),
+                new Customer("foo", "foo@bar.com", 30)
+        ));
+        assertThat(taken).containsExactly("foo@bar.com");
+        assertThat(underTest.selectAllCustomers()).hasSize(2);
+    }
+
+    @Test
+    void selectCustomerByAgeScansOnlyLiveRows() {
+        List<Integer> ids = insert(6, 30);
+        underTest.removeCustomerById(ids.get(2));
+        underTest.insertCustomerIfEmailFree(new Customer("bar", "bar@bar.com", 40));
+
+        assertThat(underTest.selectCustomerByAge(30))
+                .extracting(Customer::getId)
+                .containsExactly(ids.get(0), ids.get(1), ids.get(3), ids.get(4), ids.get(5));
+        assertThat(underTest.selectCustomerPageByAge(30, ids.get(1), 2))
+                .extracting(Customer::getId)
+                .containsExactly(ids.get(3), ids.get(4));
+    }
+
+    @Test
+    void selectCustomerPageByAgeRange() {
+        Integer young = underTest.insertCustomerIfEmailFree(new Customer("foo", "foo@bar.com", 20)).orElseThrow();
+        Integer middle = underTest.insertCustomerIfEmailFree(new Customer("bar", "bar@bar.com", 30)).orElseThrow();
+        Integer old = underTest.insertCustomerIfEmailFree(new Customer("baz", "baz@bar.com", 40)).orElseThrow();
+        underTest.removeCustomerById(old);
+
+        assertThat(underTest.selectCustomerPageByAgeRange(25, Integer.MAX_VALUE, 0, 10))
+                .extracting(Customer::getId)
+                .containsExactly(middle);
+        assertThat(underTest.selectCustomerPageByAgeRange(0, 30, young, 10))
+                .extracting(Customer::getId)
+                .containsExactly(middle);
+    }
+
+    @Test
+    void selectCustomerPageSkipsRemovedRows() {
+        List<Integer> ids = insert(5, 30);
+        underTest.removeCustomersByIds(List.of(ids.get(1), ids.get(2), -1));
+
+        assertThat(underTest.selectCustomerPage(0, 2))
+                .extracting(Customer::getId)
+                .containsExactly(ids.get(0), ids.get(3));
+    }
+
+    @Test
+    void updateCustomerByIdRewritesColumnsAndEmailIndex() {
+        Integer id = underTest.insertCustomerIfEmailFree(new Customer("foo", "foo@bar.com", 30)).orElseThrow();
+        underTest.insertCustomerIfEmailFree(new Customer("bar", "bar@bar.com", 30));
+
+        assertThat(underTest.updateCustomerById(id, new CustomerUpdateRequest("foo", "foo@bar.com", 30)).status())
+                .isEqualTo(CustomerUpdateResult.Status.UNCHANGED);
+        assertThat(underTest.updateCustomerById(id, new CustomerUpdateRequest(null, "bar@bar.com", null)).status())
+                .isEqualTo(CustomerUpdateResult.Status.EMAIL_TAKEN);
+
+        CustomerUpdateResult actual = underTest.updateCustomerById(id, new CustomerUpdateRequest("baz", "baz@bar.com", 31));
+        assertThat(actual.customer()).isEqualTo(new Customer(id, "baz", "baz@bar.com", 31));
+        assertThat(actual.customer().getVersion()).isEqualTo(1);
+        assertThat(underTest.existsCustomerWithEmail("foo@bar.com")).isFalse();
+        assertThat(underTest.existsCustomerWithEmail("baz@bar.com")).isTrue();
+        assertThat(underTest.selectCustomerById(id)).contains(actual.customer());
+    }
+
+    @Test
+    void countCustomersByAgeFollowsWrites() {
+        Integer id = underTest.insertCustomerIfEmailFree(new Customer("foo", "foo@bar.com", 30)).orElseThrow();
+        underTest.insertCustomerIfEmailFree(new Customer("bar", "bar@bar.com", 30));
+        underTest.updateCustomerById(id, new CustomerUpdateRequest(null, null, 31));
+        assertThat(underTest.countCustomersByAge()).containsExactly(entry(30, 1L), entry(31, 1L));
+
+        underTest.removeCustomerById(id);
+        assertThat(underTest.countCustomersByAge()).containsExactly(entry(30, 1L));
+        assertThat(underTest.reconcileCustomerCountsByAge()).isZero();
+    }
+
+    @Test
+    void compactionKeepsRowsAndIndexes() {
+        List<Integer> ids = insert(10_000, 30);
+        List<Integer> removed = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (i % 4 != 0) {
+                removed.add(ids.get(i));
+            }
+        }
+        long before = underTest.sizeInBytes();
+
+        assertThat(underTest.removeCustomersByIds(removed)).isEqualTo(removed.size());
+        assertThat(underTest.sizeInBytes()).isLessThan(before);
+
+        List<Customer> all = underTest.selectAllCustomers();
+        assertThat(all).hasSize(2_500).extracting(Customer::getId).isSorted();
+        assertThat(all).allSatisfy(c -> assertThat(underTest.existsCustomerWithEmail(c.getEmail())).isTrue());
+        assertThat(underTest.selectCustomerById(ids.get(4))).map(Customer::getEmail).contains("4@bar.com");
+        assertThat(underTest.existsCustomerWithEmail("1@bar.com")).isFalse();
+    }
+
+    private List<Integer> insert(int count, int age) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(underTest.insertCustomerIfEmailFree(new Customer("foo", i + "@bar.com", age)).orElseThrow());
+        }
+        return ids;
+    }
+}
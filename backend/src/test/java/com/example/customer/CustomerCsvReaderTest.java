@@ -0,0 +1,42 @@
+package com.example.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerCsvReaderTest {
+
+    @Test
+    void readSkipsHeaderAndBlankLines() throws IOException {
+        String csv = "name,email,age\r\nfoo,foo@bar.com,30\r\n\r\nbar,bar@bar.com,40\r\n";
+
+        List<CustomerRegistrationRequest> actual = CustomerCsvReader.read(new StringReader(csv));
+        assertThat(actual).containsExactly(
+                new CustomerRegistrationRequest("foo", "foo@bar.com", 30),
+                new CustomerRegistrationRequest("bar", "bar@bar.com", 40)
+        );
+    }
+
+    @Test
+    void readQuotedFields() throws IOException {
+        String csv = "\"Lo, \"\"Tony\"\"\",tony@bar.com,30";
+
+        List<CustomerRegistrationRequest> actual = CustomerCsvReader.read(new StringReader(csv));
+        assertThat(actual).containsExactly(new CustomerRegistrationRequest("Lo, \"Tony\"", "tony@bar.com", 30));
+    }
+
+    @Test
+    void readMissingAndUnparsableValuesAsNull() throws IOException {
+        String csv = "foo,,abc\nbar";
+
+        List<CustomerRegistrationRequest> actual = CustomerCsvReader.read(new StringReader(csv));
+        assertThat(actual).containsExactly(
+                new CustomerRegistrationRequest("foo", null, null),
+                new CustomerRegistrationRequest("bar", null, null)
+        );
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerETagsTest {
+
+    @Test
+    void customerETagChangesWithTheVersion() {
+        Customer customer = new Customer(1, "foo", "foo@bar.com", 30, 0);
+        Customer updated = new Customer(1, "foo", "foo@bar.com", 31, 1);
+
+        assertThat(CustomerETags.of(customer)).isEqualTo("\"1-0\"");
+        assertThat(CustomerETags.of(updated)).isNotEqualTo(CustomerETags.of(customer));
+    }
+
+    @Test
+    void pageETagDependsOnIdsVersionsAndOrder() {
+        Customer foo = new Customer(1, "foo", "foo@bar.com", 30, 0);
+        Customer bar = new Customer(2, "bar", "bar@bar.com", 40, 0);
+        Customer barUpdated = new Customer(2, "bar", "bar@bar.com", 41, 1);
+
+        String eTag = CustomerETags.of(new CustomerPage(List.of(foo, bar), null));
+
+        assertThat(eTag).startsWith("\"p2-").endsWith("\"");
+        assertThat(CustomerETags.of(new CustomerPage(List.of(foo, bar), null))).isEqualTo(eTag);
+        assertThat(CustomerETags.of(new CustomerPage(List.of(foo, barUpdated), null))).isNotEqualTo(eTag);
+        assertThat(CustomerETags.of(new CustomerPage(List.of(bar, foo), null))).isNotEqualTo(eTag);
+        assertThat(CustomerETags.of(new CustomerPage(List.of(foo, bar), "Mg"))).isNotEqualTo(eTag);
+        assertThat(CustomerETags.of(new CustomerPage(List.of(foo), null))).isNotEqualTo(eTag);
+    }
+
+    @Test
+    void narrowedReadsNameTheirFields() {
+        Customer customer = new Customer(1, "foo", "foo@bar.com", 30, 2);
+
+        assertThat(CustomerETags.of(customer, CustomerField.ALL)).isEqualTo(CustomerETags.of(customer));
+        assertThat(CustomerETags.of(customer, CustomerField.parse("age,email"))).isEqualTo("\"1-2;id,email,age\"");
+        assertThat(CustomerETags.of(new CustomerPage(List.of(customer), null), CustomerField.parse("name")))
+                .startsWith("\"p1-")
+                .endsWith(";id,name\"");
+    }
+}
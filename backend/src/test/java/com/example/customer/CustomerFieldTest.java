@@ -0,0 +1,45 @@
+package com.example.customer;
+
+import com.example.exception.InvalidFieldsException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerFieldTest {
+
+    @Test
+    void parsesFieldNamesAndAlwaysIncludesTheId() {
+        assertThat(CustomerField.parse(" Email, age ,"))
+                .containsExactly(CustomerField.ID, CustomerField.EMAIL, CustomerField.AGE);
+    }
+
+    @Test
+    void missingOrCompleteListsMeanAllFields() {
+        assertThat(CustomerField.parse(null)).isSameAs(CustomerField.ALL);
+        assertThat(CustomerField.parse(" ")).isSameAs(CustomerField.ALL);
+        assertThat(CustomerField.parse("name,email,age")).isSameAs(CustomerField.ALL);
+    }
+
+    @Test
+    void rejectsUnknownFields() {
+        assertThatThrownBy(() -> CustomerField.parse("email,password"))
+                .isInstanceOf(InvalidFieldsException.class)
+                .hasMessageContaining("Field [password] is not a customer field");
+    }
+
+    @Test
+    void projectCopiesOnlyTheRequestedFields() {
+        Customer customer = new Customer(1, "foo", "foo@bar.com", 30, 4);
+
+        Customer projected = CustomerField.project(customer, CustomerField.parse("name"));
+
+        assertThat(projected).isNotSameAs(customer);
+        assertThat(projected.getId()).isEqualTo(1);
+        assertThat(projected.getName()).isEqualTo("foo");
+        assertThat(projected.getEmail()).isNull();
+        assertThat(projected.getAge()).isNull();
+        assertThat(projected.getVersion()).isEqualTo(4);
+        assertThat(CustomerField.project(customer, CustomerField.ALL)).isSameAs(customer);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.customer;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares retained heap per million customers across the in-memory stores. The entity figure is the
+ * {@link Customer} objects JPA materialises for a result; a managed persistence context adds its own
+ * loaded-state snapshot per entity on top. Override the row count with {@code -Dcustomers=N}.
+ * <p>
+ * Heap readings after {@code System.gc()} are only as steady as the JVM running them, so this is part of
+ * the load profile rather than the default build: {@code mvn -Pload verify -Dit.test=CustomerHeapFootprintIT}.
+ */
+class CustomerHeapFootprintIT {
+    private static final Logger log = LoggerFactory.getLogger(CustomerHeapFootprintIT.class);
+    private static final int CUSTOMERS = Integer.getInteger("customers", 1_000_000);
+
+    @Test
+    void columnarStoreTakesLessHeapThanObjects() {
+        long columnar = retainedBytes(CustomerColumnarDataAccessService::new,
+                dao -> forEachCustomer(dao::insertCustomerIfEmailFree));
+        long list = retainedBytes(CustomerListDataAccessService::new,
+                dao -> forEachCustomer(dao::insertCustomerIfEmailFree));
+        long entities = retainedBytes(() -> new ArrayList<Customer>(CUSTOMERS),
+                customers -> forEachCustomer(c -> customers.add(
+                        new Customer(customers.size() + 1, c.getName(), c.getEmail(), c.getAge()))));
+
+        log.info("Heap per million customers: columnar {} MB, list {} MB, JPA entities {} MB",
+                perMillion(columnar), perMillion(list), perMillion(entities));
+
+        assertThat(columnar).as("columnar bytes against the list store").isLessThan(list);
+        assertThat(columnar).as("columnar bytes against JPA entities").isLessThan(entities);
+    }
+
+    private static <T> long retainedBytes(Supplier<T> store, Consumer<T> fill) {
+        long before = usedHeapAfterGc();
+        T filled = store.get();
+        fill.accept(filled);
+        long after = usedHeapAfterGc();
+        Reference.reachabilityFence(filled);
+        return after - before;
+    }
+
+    private static void forEachCustomer(Consumer<Customer> action) {
+        for (int i = 0; i < CUSTOMERS; i++) {
+            action.accept(new Customer("Customer " + i, "customer" + i + "@example.com", 20 + i % 50));
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long perMillion(long bytes) {
+        return bytes * 1_000_000L / CUSTOMERS / (1024 * 1024);
+    }
+}
@@ -5,8 +5,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -22,7 +25,8 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
     void setUp() {
         underTest = new CustomerJDBCDataAccessService(
                 getJdbcTemplate(),
-                customerRowMapper
+                customerRowMapper,
+                new StatementLog(Duration.ofSeconds(1), 0.0)
         );
     }
 
@@ -61,6 +65,129 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(expected.get(0).equals(customer2));
     }
 
+    @Test
+    void selectCustomerPage() {
+        for (int i = 0; i < 3; i++) {
+            underTest.insertCustomer(new Customer(
+                    FAKER.name().fullName(),
+                    UUID.randomUUID() + "@" + FAKER.internet().domainName(),
+                    20
+            ));
+        }
+
+        List<Customer> firstPage = underTest.selectCustomerPage(0, 2);
+        assertThat(firstPage).hasSize(2);
+        assertThat(firstPage.get(0).getId()).isLessThan(firstPage.get(1).getId());
+
+        int afterId = firstPage.get(1).getId();
+        List<Customer> nextPage = underTest.selectCustomerPage(afterId, 2);
+        assertThat(nextPage).isNotEmpty().allSatisfy(c -> assertThat(c.getId()).isGreaterThan(afterId));
+    }
+
+    @Test
+    void selectCustomerPageByAge() {
+        Integer targetAge = 46;
+        String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                UUID.randomUUID() + "@" + FAKER.internet().domainName(),
+                20
+        ));
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, targetAge));
+
+        List<Customer> actual = underTest.selectCustomerPageByAge(targetAge, 0, 10);
+        assertThat(actual).isNotEmpty().allSatisfy(c -> assertThat(c.getAge()).isEqualTo(targetAge));
+        assertThat(actual).extracting(Customer::getEmail).contains(email);
+    }
+
+    @Test
+    void selectCustomerPageByAgeRange() {
+        String inRange = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        String outOfRange = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), inRange, 71));
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), outOfRange, 75));
+
+        List<Customer> actual = underTest.selectCustomerPageByAgeRange(70, 72, 0, 1000);
+        assertThat(actual).allSatisfy(c -> assertThat(c.getAge()).isBetween(70, 72));
+        assertThat(actual).extracting(Customer::getId).isSorted();
+        assertThat(actual).extracting(Customer::getEmail).contains(inRange).doesNotContain(outOfRange);
+    }
+
+    @Test
+    void selectCustomerFieldsReadsOnlyTheRequestedColumns() {
+        int age = 47;
+        String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        Integer id = underTest.insertCustomerIfEmailFree(new Customer("foo", email, age)).orElseThrow();
+        Set<CustomerField> fields = CustomerField.parse("email");
+
+        List<Customer> page = underTest.selectCustomerFieldsPageByAge(age, id - 1, 1, fields);
+        assertThat(page).singleElement().satisfies(customer -> {
+            assertThat(customer.getId()).isEqualTo(id);
+            assertThat(customer.getEmail()).isEqualTo(email);
+            assertThat(customer.getName()).isNull();
+            assertThat(customer.getAge()).isNull();
+        });
+
+        assertThat(underTest.selectCustomerFieldsById(id, CustomerField.parse("age,name")))
+                .hasValueSatisfying(customer -> {
+                    assertThat(customer.getName()).isEqualTo("foo");
+                    assertThat(customer.getAge()).isEqualTo(age);
+                    assertThat(customer.getEmail()).isNull();
+                });
+    }
+
+    @Test
+    void searchCustomersRanksLikeTheInMemoryIndex() {
+        CustomerListDataAccessService inMemory = new CustomerListDataAccessService();
+        List<Customer> customers = List.of(
+                new Customer("Qxzv_ Alpha", "alpha." + UUID.randomUUID() + "@example.com", 30),
+                new Customer("Alpha Qxzva", "alpha." + UUID.randomUUID() + "@example.com", 31),
+                new Customer("Beta", "qxzv." + UUID.randomUUID() + "@example.com", 32),
+                new Customer("Qxzvabc", "gamma." + UUID.randomUUID() + "@example.com", 33)
+        );
+        customers.forEach(underTest::insertCustomer);
+        customers.forEach(inMemory::insertCustomer);
+
+        for (String term : List.of("qxzv", "Qxzv_", "qxzvab", "alpha qxzva")) {
+            assertThat(underTest.searchCustomers(term, 3))
+                    .as(term)
+                    .extracting(Customer::getName)
+                    .containsExactlyElementsOf(inMemory.searchCustomers(term, 3).stream().map(Customer::getName).toList());
+        }
+        assertThat(underTest.searchCustomers("Qxzv_", 1)).extracting(Customer::getName).containsExactly("Qxzv_ Alpha");
+    }
+
+    @Test
+    void countCustomersByAgeFollowsWrites() {
+        int age = 101;
+        long before = underTest.countCustomersByAge().getOrDefault(age, 0L);
+        Integer id = underTest.insertCustomerIfEmailFree(
+                new Customer("foo", UUID.randomUUID() + "@" + FAKER.internet().domainName(), age)
+        ).orElseThrow();
+        underTest.insertCustomers(List.of(
+                new Customer("bar", UUID.randomUUID() + "@" + FAKER.internet().domainName(), age)
+        ));
+        assertThat(underTest.countCustomersByAge()).containsEntry(age, before + 2);
+
+        underTest.updateCustomerById(id, new CustomerUpdateRequest(null, null, age + 1));
+        assertThat(underTest.countCustomersByAge()).containsEntry(age, before + 1);
+
+        underTest.removeCustomerById(id);
+        assertThat(underTest.countCustomersByAge().getOrDefault(age + 1, 0L)).isZero();
+    }
+
+    @Test
+    void reconcileCustomerCountsByAgeCorrectsDrift() {
+        int age = 103;
+        underTest.insertCustomer(new Customer("foo", UUID.randomUUID() + "@" + FAKER.internet().domainName(), age));
+        long expected = underTest.countCustomersByAge().get(age);
+        getJdbcTemplate().update("UPDATE customer_age_count SET customers = customers + 5 WHERE age = ?", age);
+
+        assertThat(underTest.reconcileCustomerCountsByAge()).isEqualTo(1);
+        assertThat(underTest.countCustomersByAge()).containsEntry(age, expected);
+        assertThat(underTest.reconcileCustomerCountsByAge()).isZero();
+    }
+
     @Test
     void selectCustomerById() {
         String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
@@ -104,6 +231,64 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
     void insertCustomer() {
     }
 
+    @Test
+    void insertCustomerIfEmailFree() {
+        String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        Customer customer = new Customer(FAKER.name().fullName(), email, 30);
+
+        Optional<Integer> id = underTest.insertCustomerIfEmailFree(customer);
+        assertThat(id).isPresent();
+        assertThat(underTest.selectCustomerById(id.get()))
+                .hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(email));
+
+        Customer sameEmail = new Customer(FAKER.name().fullName(), email, 40);
+        assertThat(underTest.insertCustomerIfEmailFree(sameEmail)).isEmpty();
+    }
+
+    @Test
+    void insertCustomers() {
+        String takenEmail = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 30));
+
+        List<Customer> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(new Customer(
+                    "\"Quoted\", " + FAKER.name().fullName(),
+                    UUID.randomUUID() + "@" + FAKER.internet().domainName(),
+                    20 + i
+            ));
+        }
+        batch.add(new Customer(FAKER.name().fullName(), takenEmail, 40));
+
+        Set<String> taken = underTest.insertCustomers(batch);
+        assertThat(taken).containsExactly(takenEmail);
+        for (Customer customer : batch.subList(0, 10)) {
+            assertThat(underTest.existsCustomerWithEmail(customer.getEmail())).isTrue();
+        }
+        List<Customer> all = underTest.selectAllCustomers();
+        assertThat(all).extracting(Customer::getName).contains(batch.get(0).getName());
+    }
+
+    @Test
+    void insertsTakeConsecutiveIdsFromTheSequenceBlocks() {
+        List<Customer> batch = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            batch.add(new Customer(FAKER.name().fullName(), UUID.randomUUID() + "@example.com", 30));
+        }
+
+        underTest.insertCustomers(batch);
+
+        List<Integer> ids = new ArrayList<>();
+        for (Customer customer : batch) {
+            ids.add(getJdbcTemplate().queryForObject(
+                    "SELECT id FROM customer WHERE email = ?", Integer.class, customer.getEmail()));
+        }
+        // at most four blocks of 50 rather than one block per row
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(ids.stream().mapToInt(Integer::intValue).max().orElseThrow()
+                - ids.stream().mapToInt(Integer::intValue).min().orElseThrow()).isLessThan(200);
+    }
+
     @Test
     void removeCustomerById() {
         String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
@@ -122,8 +307,22 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
                 .findFirst()
                 .orElseThrow();
 
-        underTest.removeCustomerById(id);
+        assertThat(underTest.removeCustomerById(id)).isTrue();
         assertThat(underTest.selectCustomerById(id)).isNotPresent();
+        assertThat(underTest.removeCustomerById(id)).isFalse();
+    }
+
+    @Test
+    void removeCustomersByIds() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+            ids.add(underTest.insertCustomerIfEmailFree(new Customer("foo", email, 30)).orElseThrow());
+        }
+        ids.add(-1);
+
+        assertThat(underTest.removeCustomersByIds(ids)).isEqualTo(3);
+        assertThat(ids).allSatisfy(id -> assertThat(underTest.selectCustomerById(id)).isEmpty());
     }
 
     @Test
@@ -173,6 +372,60 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(updated.getName().equals(newName));
     }
 
+    @Test
+    void updateCustomerById() {
+        String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        Integer id = underTest.insertCustomerIfEmailFree(new Customer("foo", email, 30)).orElseThrow();
+
+        CustomerUpdateResult actual = underTest.updateCustomerById(id, new CustomerUpdateRequest("bar", null, 31));
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.UPDATED);
+        assertThat(actual.customer()).isEqualTo(new Customer(id, "bar", email, 31));
+        assertThat(underTest.selectCustomerById(id)).contains(new Customer(id, "bar", email, 31));
+    }
+
+    @Test
+    void updatesBumpTheVersionOnlyWhenTheRowChanges() {
+        String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        Integer id = underTest.insertCustomerIfEmailFree(new Customer("foo", email, 30)).orElseThrow();
+        assertThat(underTest.selectCustomerById(id).orElseThrow().getVersion()).isZero();
+
+        CustomerUpdateResult result = underTest.updateCustomerById(id, new CustomerUpdateRequest("bar", null, null));
+        assertThat(result.customer().getVersion()).isEqualTo(1);
+
+        underTest.updateCustomer(new Customer(id, "bar", email, 30));
+        assertThat(underTest.selectCustomerById(id).orElseThrow().getVersion()).isEqualTo(1);
+
+        underTest.updateCustomer(new Customer(id, "bar", email, 31));
+        assertThat(underTest.selectCustomerById(id).orElseThrow().getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void updateCustomerByIdReportsUnchanged() {
+        String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        Integer id = underTest.insertCustomerIfEmailFree(new Customer("foo", email, 30)).orElseThrow();
+
+        CustomerUpdateResult actual = underTest.updateCustomerById(id, new CustomerUpdateRequest("foo", email, 30));
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.UNCHANGED);
+    }
+
+    @Test
+    void updateCustomerByIdReportsNotFound() {
+        CustomerUpdateResult actual = underTest.updateCustomerById(-1, new CustomerUpdateRequest("foo", null, null));
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.NOT_FOUND);
+    }
+
+    @Test
+    void updateCustomerByIdReportsEmailTaken() {
+        String takenEmail = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        underTest.insertCustomerIfEmailFree(new Customer("foo", takenEmail, 30));
+        Integer id = underTest.insertCustomerIfEmailFree(
+                new Customer("bar", UUID.randomUUID() + "@" + FAKER.internet().domainName(), 30)
+        ).orElseThrow();
+
+        CustomerUpdateResult actual = underTest.updateCustomerById(id, new CustomerUpdateRequest(null, takenEmail, null));
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.EMAIL_TAKEN);
+    }
+
     @Test
     void existsCustomerWithEmail() {
         String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
@@ -184,4 +437,16 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
         assertThat(underTest.existsCustomerWithEmail(email)).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    void forEachCustomer() {
+        String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 25));
+
+        List<Customer> streamed = new ArrayList<>();
+        underTest.forEachCustomer(streamed::add);
+
+        assertThat(streamed).extracting(Customer::getEmail).contains(email);
+        assertThat(streamed).extracting(Customer::getId).isSorted();
+    }
+}
@@ -7,9 +7,16 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.verify;
 
@@ -43,6 +50,19 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).findByAge(age);
     }
 
+    @Test
+    void selectCustomerPage() {
+        underTest.selectCustomerPage(10, 20);
+        verify(customerRepository).findByIdGreaterThanOrderByIdAsc(10, PageRequest.ofSize(20));
+    }
+
+    @Test
+    void selectCustomerPageByAge() {
+        Integer age = 20;
+        underTest.selectCustomerPageByAge(age, 10, 20);
+        verify(customerRepository).findByAgeAndIdGreaterThanOrderByIdAsc(age, 10, PageRequest.ofSize(20));
+    }
+
     @Test
     void selectCustomerById() {
         Integer id = 1;
@@ -62,11 +82,56 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).save(customer);
     }
 
+    @Test
+    void insertCustomerIfEmailFree() {
+        Customer customer = new Customer("foo", "foo@bar.com", 30);
+
+        underTest.insertCustomerIfEmailFree(customer);
+        verify(customerRepository).insertIfEmailFree("foo", "foo@bar.com", 30);
+    }
+
+    @Test
+    void insertCustomers() {
+        Customer fresh = new Customer("foo", "foo@bar.com", 30);
+        Customer duplicate = new Customer("bar", "bar@bar.com", 30);
+        Mockito.when(customerRepository.findExistingEmails(List.of("foo@bar.com", "bar@bar.com")))
+                .thenReturn(Set.of("bar@bar.com"));
+
+        Set<String> taken = underTest.insertCustomers(List.of(fresh, duplicate));
+        assertThat(taken).containsExactly("bar@bar.com");
+        verify(customerRepository).saveAll(List.of(fresh));
+    }
+
+    @Test
+    void insertCustomersFallsBackToRowsWhenAnEmailIsTakenConcurrently() {
+        Customer fresh = new Customer("foo", "foo@bar.com", 30);
+        Customer raced = new Customer("bar", "bar@bar.com", 30);
+        Mockito.when(customerRepository.findExistingEmails(Mockito.anyCollection())).thenReturn(Set.of());
+        Mockito.when(customerRepository.saveAll(List.of(fresh, raced)))
+                .thenThrow(new DataIntegrityViolationException("customer_email_unique"));
+        Mockito.when(customerRepository.insertIfEmailFree("foo", "foo@bar.com", 30)).thenReturn(Optional.of(7));
+        Mockito.when(customerRepository.insertIfEmailFree("bar", "bar@bar.com", 30)).thenReturn(Optional.empty());
+
+        Set<String> taken = underTest.insertCustomers(List.of(fresh, raced));
+        assertThat(taken).containsExactly("bar@bar.com");
+        assertThat(fresh.getId()).isEqualTo(7);
+        assertThat(raced.getId()).isNull();
+    }
+
     @Test
     void removeCustomerById() {
         Integer id = 1;
-        underTest.removeCustomerById(id);
-        verify(customerRepository).deleteById(id);
+        Mockito.when(customerRepository.deleteCustomerById(id)).thenReturn(1);
+        assertThat(underTest.removeCustomerById(id)).isTrue();
+    }
+
+    @Test
+    void removeCustomersByIdsDeletesInChunks() {
+        List<Integer> ids = IntStream.rangeClosed(1, CustomerJPADataAccessService.ID_CHUNK_SIZE + 1).boxed().toList();
+        Mockito.when(customerRepository.deleteCustomersByIdIn(Mockito.anyCollection())).thenReturn(1000, 1);
+
+        assertThat(underTest.removeCustomersByIds(ids)).isEqualTo(ids.size());
+        verify(customerRepository, Mockito.times(2)).deleteCustomersByIdIn(Mockito.anyCollection());
     }
 
     @Test
@@ -81,6 +146,43 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).save(customer);
     }
 
+    @Test
+    void updateCustomerById() {
+        Integer id = 1;
+        Customer customer = new Customer(id, "foo", "foo@bar.com", 30);
+        Mockito.when(customerRepository.findById(id)).thenReturn(Optional.of(customer));
+        Mockito.when(customerRepository.saveAndFlush(customer)).thenReturn(customer);
+
+        CustomerUpdateResult actual = underTest.updateCustomerById(id, new CustomerUpdateRequest("bar", null, 30));
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.UPDATED);
+        assertThat(actual.customer()).isEqualTo(new Customer(id, "bar", "foo@bar.com", 30));
+    }
+
+    @Test
+    void updateCustomerByIdWithEmailTakenConcurrently() {
+        Integer id = 1;
+        Customer customer = new Customer(id, "foo", "foo@bar.com", 30);
+        Mockito.when(customerRepository.findById(id)).thenReturn(Optional.of(customer));
+        Mockito.when(customerRepository.existsCustomerByEmail("bar@bar.com")).thenReturn(false);
+        Mockito.when(customerRepository.saveAndFlush(customer))
+                .thenThrow(new DataIntegrityViolationException("customer_email_unique"));
+
+        CustomerUpdateResult actual = underTest.updateCustomerById(id, new CustomerUpdateRequest(null, "bar@bar.com", null));
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.EMAIL_TAKEN);
+    }
+
+    @Test
+    void updateCustomerByIdWithTakenEmail() {
+        Integer id = 1;
+        Customer customer = new Customer(id, "foo", "foo@bar.com", 30);
+        Mockito.when(customerRepository.findById(id)).thenReturn(Optional.of(customer));
+        Mockito.when(customerRepository.existsCustomerByEmail("bar@bar.com")).thenReturn(true);
+
+        CustomerUpdateResult actual = underTest.updateCustomerById(id, new CustomerUpdateRequest("bar", "bar@bar.com", null));
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.EMAIL_TAKEN);
+        assertThat(customer.getName()).isEqualTo("foo");
+    }
+
     @Test
     void existsCustomerWithEmail() {
         Faker FAKER = new Faker();
@@ -0,0 +1,64 @@
+package com.example.customer;
+
+import com.example.AbstractTestcontainers;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link CustomerJPADataAccessService#insertCustomers(List)} batches: pooled ids and JDBC
+ * batching keep the prepared statements to a few per 50 rows, instead of a nextval and an INSERT per row.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomerJPAInsertBatchingIT extends AbstractTestcontainers {
+    private static final int ROWS = 1_000;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        customerRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void insertsInBatches() {
+        CustomerJPADataAccessService underTest = new CustomerJPADataAccessService(customerRepository);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Customer> customers = customers(ROWS);
+        underTest.insertCustomers(customers);
+
+        // one nextval per 50 ids and one batch per 50 rows, plus the lookup of taken emails
+        assertThat(statistics.getPrepareStatementCount())
+                .as("statements prepared for %d rows", ROWS)
+                .isLessThan(ROWS / 10);
+        assertThat(customers).allSatisfy(c -> assertThat(c.getId()).isNotNull());
+    }
+
+    private static List<Customer> customers(int count) {
+        List<Customer> customers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            customers.add(new Customer(FAKER.name().fullName(), UUID.randomUUID() + "@example.com", 30));
+        }
+        return customers;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.customer;
+
+import com.example.AbstractTestcontainers;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures JPA insert throughput through {@link CustomerJPADataAccessService#insertCustomers(List)}
+ * against saving the same number of rows one at a time, each in its own transaction. For the baseline
+ * before pooled ids (allocationSize = 1, no JDBC batching), run it on that commit as well. Part of
+ * the load profile: {@code mvn -Pload verify -Dit.test=CustomerJPAInsertThroughputLoadIT}; override
+ * the row count with {@code -Dload.rows=N}.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomerJPAInsertThroughputLoadIT extends AbstractTestcontainers {
+    private static final Logger log = LoggerFactory.getLogger(CustomerJPAInsertThroughputLoadIT.class);
+    private static final int WARMUP_ROWS = 2_000;
+    private static final int ROWS = Integer.getInteger("load.rows", 20_000);
+
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        customerRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void batchedInsertsOutpaceRowByRowSaves() {
+        CustomerJPADataAccessService underTest = new CustomerJPADataAccessService(customerRepository);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        underTest.insertCustomers(customers(WARMUP_ROWS));
+        customers(WARMUP_ROWS).forEach(customerRepository::save);
+
+        List<Customer> rowByRow = customers(ROWS);
+        long start = System.nanoTime();
+        rowByRow.forEach(customerRepository::save);
+        long rowByRowNanos = System.nanoTime() - start;
+
+        statistics.clear();
+        List<Customer> batched = customers(ROWS);
+        start = System.nanoTime();
+        underTest.insertCustomers(batched);
+        long batchedNanos = System.nanoTime() - start;
+        long statements = statistics.getPrepareStatementCount();
+
+        log.info("JPA inserts of {} rows: {} inserts/s row by row, {} inserts/s batched with {} statements",
+                ROWS, insertsPerSecond(rowByRowNanos), insertsPerSecond(batchedNanos), statements);
+
+        // one nextval per 50 ids and one batch per 50 rows, instead of a nextval and an INSERT per row
+        assertThat(statements).isLessThan(ROWS / 5);
+        assertThat(batched).allSatisfy(c -> assertThat(c.getId()).isNotNull());
+        assertThat(batchedNanos)
+                .as("insertCustomers against %d ms row by row", rowByRowNanos / 1_000_000)
+                .isLessThan(rowByRowNanos);
+    }
+
+    private static long insertsPerSecond(long nanos) {
+        return Math.round(ROWS * 1e9 / nanos);
+    }
+
+    private static List<Customer> customers(int count) {
+        List<Customer> customers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            customers.add(new Customer(FAKER.name().fullName(), UUID.randomUUID() + "@example.com", 30));
+        }
+        return customers;
+    }
+}
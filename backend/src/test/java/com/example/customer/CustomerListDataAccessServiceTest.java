@@ -0,0 +1,234 @@
+package com.example.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+class CustomerListDataAccessServiceTest {
+    private CustomerListDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerListDataAccessService();
+        underTest.removeCustomersByIds(underTest.selectAllCustomers().stream().map(Customer::getId).toList());
+    }
+
+    @Test
+    void insertCustomerGeneratesIds() {
+        underTest.insertCustomer(new Customer(42, "foo", "foo@bar.com", 30));
+        underTest.insertCustomer(new Customer(42, "bar", "bar@bar.com", 30));
+
+        List<Customer> actual = underTest.selectAllCustomers();
+        assertThat(actual).extracting(Customer::getId).doesNotHaveDuplicates().doesNotContain(42);
+    }
+
+    @Test
+    void insertCustomerRejectsTakenEmailIgnoringCase() {
+        underTest.insertCustomer(new Customer("foo", "foo@bar.com", 30));
+
+        assertThatThrownBy(() -> underTest.insertCustomer(new Customer("bar", "FOO@bar.com", 30)))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(underTest.existsCustomerWithEmail("Foo@Bar.com")).isTrue();
+    }
+
+    @Test
+    void updateCustomerByIdMovesIndexes() {
+        Integer id = underTest.insertCustomerIfEmailFree(new Customer("foo", "foo@bar.com", 30)).orElseThrow();
+
+        CustomerUpdateResult actual = underTest.updateCustomerById(id, new CustomerUpdateRequest(null, "baz@bar.com", 31));
+        assertThat(actual.customer()).isEqualTo(new Customer(id, "foo", "baz@bar.com", 31));
+        assertThat(underTest.existsCustomerWithEmail("foo@bar.com")).isFalse();
+        assertThat(underTest.existsCustomerWithEmail("baz@bar.com")).isTrue();
+        assertThat(underTest.selectCustomerByAge(30)).isEmpty();
+        assertThat(underTest.selectCustomerByAge(31)).containsExactly(actual.customer());
+    }
+
+    @Test
+    void readsReturnCopies() {
+        Integer id = underTest.insertCustomerIfEmailFree(new Customer("foo", "foo@bar.com", 30)).orElseThrow();
+
+        underTest.selectCustomerById(id).orElseThrow().setEmail("changed@bar.com");
+        assertThat(underTest.selectCustomerById(id)).map(Customer::getEmail).contains("foo@bar.com");
+    }
+
+    @Test
+    void selectCustomerPageByAgeFollowsIdOrder() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(underTest.insertCustomerIfEmailFree(new Customer("foo", i + "@bar.com", 30)).orElseThrow());
+        }
+        underTest.insertCustomerIfEmailFree(new Customer("bar", "bar@bar.com", 40));
+
+        assertThat(underTest.selectCustomerPageByAge(30, ids.get(1), 2))
+                .extracting(Customer::getId)
+                .containsExactly(ids.get(2), ids.get(3));
+    }
+
+    @Test
+    void selectCustomerPageByAgeRangeMergesAgesInIdOrder() {
+        List<Integer> ids = new ArrayList<>();
+        int[] ages = { 31, 30, 35, 41, 32, 30 };
+        for (int i = 0; i < ages.length; i++) {
+            ids.add(underTest.insertCustomerIfEmailFree(new Customer("foo", i + "@bar.com", ages[i])).orElseThrow());
+        }
+
+        assertThat(underTest.selectCustomerPageByAgeRange(30, 35, 0, 10))
+                .extracting(Customer::getId)
+                .containsExactly(ids.get(0), ids.get(1), ids.get(2), ids.get(4), ids.get(5));
+        assertThat(underTest.selectCustomerPageByAgeRange(30, 35, ids.get(1), 2))
+                .extracting(Customer::getId)
+                .containsExactly(ids.get(2), ids.get(4));
+    }
+
+    @Test
+    void countCustomersByAgeFollowsWrites() {
+        Integer id = underTest.insertCustomerIfEmailFree(new Customer("foo", "foo@bar.com", 30)).orElseThrow();
+        underTest.insertCustomerIfEmailFree(new Customer("bar", "bar@bar.com", 30));
+        underTest.updateCustomerById(id, new CustomerUpdateRequest(null, null, 31));
+        assertThat(underTest.countCustomersByAge()).containsExactly(entry(30, 1L), entry(31, 1L));
+
+        underTest.removeCustomerById(id);
+        assertThat(underTest.countCustomersByAge()).containsExactly(entry(30, 1L));
+        assertThat(underTest.reconcileCustomerCountsByAge()).isZero();
+    }
+
+    @Test
+    void concurrentInsertsOfOneEmailLetExactlyOneWin() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<Integer>>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return underTest.insertCustomerIfEmailFree(new Customer("foo", "same@bar.com", 30));
+            }));
+        }
+        start.countDown();
+
+        int winners = 0;
+        for (Future<Optional<Integer>> result : results) {
+            if (result.get(10, TimeUnit.SECONDS).isPresent()) {
+                winners++;
+            }
+        }
+        executor.shutdown();
+        assertThat(winners).isEqualTo(1);
+    }
+
+    @Test
+    void indexesStayConsistentUnderConcurrentWrites() throws Exception {
+        int threads = 8;
+        int operationsPerThread = 5_000;
+        int emails = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Throwable> failures = ConcurrentHashMap.newKeySet();
+        AtomicInteger reads = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(executor.submit(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        String email = random.nextInt(emails) + "@bar.com";
+                        int age = random.nextInt(20, 25);
+                        int id = random.nextInt(1, emails * 4);
+                        switch (random.nextInt(5)) {
+                            case 0 -> underTest.insertCustomerIfEmailFree(new Customer("foo", email, age));
+                            case 1 -> underTest.updateCustomerById(id, new CustomerUpdateRequest("bar", email, age));
+                            case 2 -> underTest.removeCustomerById(id);
+                            case 3 -> underTest.selectCustomerByAge(age).forEach(c -> {
+                                if (c.getAge() != age) {
+                                    failures.add(new AssertionError("Age index returned " + c));
+                                }
+                            });
+                            default -> {
+                                underTest.existsCustomerWithEmail(email);
+                                reads.incrementAndGet();
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(failures).isEmpty();
+        assertThat(reads.get()).isPositive();
+
+        List<Customer> all = underTest.selectAllCustomers();
+        assertThat(all).extracting(Customer::getId).doesNotHaveDuplicates().isSorted();
+        assertThat(all).extracting(Customer::getEmail).doesNotHaveDuplicates();
+        Set<Customer> byAge = new HashSet<>();
+        for (int age = 20; age < 25; age++) {
+            byAge.addAll(underTest.selectCustomerByAge(age));
+        }
+        assertThat(byAge).containsExactlyInAnyOrderElementsOf(all);
+        for (int i = 0; i < emails; i++) {
+            String email = i + "@bar.com";
+            assertThat(underTest.existsCustomerWithEmail(email))
+                    .isEqualTo(all.stream().anyMatch(c -> c.getEmail().equals(email)));
+        }
+    }
+
+    @Test
+    void searchCustomersFollowsWrites() {
+        underTest.insertCustomer(new Customer("Tony", "tony@gmail.com", 30));
+        underTest.insertCustomer(new Customer("Ivy", "ivy@gmail.com", 34));
+        underTest.insertCustomer(new Customer("Loi", "loi@gmail.com", 34));
+
+        assertThat(underTest.searchCustomers("ton", 10)).extracting(Customer::getName).containsExactly("Tony");
+        assertThat(underTest.searchCustomers("iv", 10)).extracting(Customer::getName).containsExactly("Ivy");
+
+        Integer id = underTest.insertCustomerIfEmailFree(new Customer("Anton", "anton@bar.com", 40)).orElseThrow();
+        assertThat(underTest.searchCustomers("ton", 10)).extracting(Customer::getName).containsExactly("Tony", "Anton");
+
+        underTest.updateCustomerById(id, new CustomerUpdateRequest("Boris", "boris@bar.com", null));
+        assertThat(underTest.searchCustomers("ton", 10)).extracting(Customer::getName).containsExactly("Tony");
+        assertThat(underTest.searchCustomers("boris", 10)).extracting(Customer::getId).containsExactly(id);
+
+        underTest.removeCustomerById(id);
+        assertThat(underTest.searchCustomers("boris", 10)).isEmpty();
+    }
+
+    @Test
+    void searchCustomersFindsWhatAFullScanFinds() {
+        String[] names = {"Jonathan", "Jonathon", "Nathan", "Joan", "Johanna", "Anna", "Hannah"};
+        for (int i = 0; i < 200; i++) {
+            String name = names[i % names.length];
+            underTest.insertCustomer(new Customer(name + " " + i, name.toLowerCase() + i + "@example.com", 30));
+        }
+
+        for (String term : List.of("jo", "nathan", "jonathon", "hann", "ann 1", "example", "xyz")) {
+            CustomerSearch scan = new CustomerSearch(term, 25);
+            underTest.selectAllCustomers().forEach(scan::offer);
+            assertThat(underTest.searchCustomers(term, 25)).as(term).isEqualTo(scan.results());
+        }
+    }
+}
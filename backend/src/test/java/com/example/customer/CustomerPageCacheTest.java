@@ -0,0 +1,201 @@
+package com.example.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerPageCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CustomerPageCache underTest =
+            new CustomerPageCache(objectMapper, true, 1024 * 1024, Duration.ofMinutes(10), true);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void servesTheSameBytesUntilInvalidated() throws IOException {
+        Supplier<CustomerPage> loader = counting(page(30, 1, 2));
+
+        CustomerPageCache.EncodedPage first = underTest.get(30, null, null, CustomerField.ALL, loader);
+        CustomerPageCache.EncodedPage second = underTest.get(30, null, null, CustomerField.ALL, loader);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(objectMapper.readValue(first.json(), CustomerPage.class).customers())
+                .extracting(Customer::getId)
+                .containsExactly(1, 2);
+        assertThat(first.eTag()).isEqualTo(CustomerETags.of(page(30, 1, 2)));
+    }
+
+    @Test
+    void keysOnTheResolvedCursorAndPageSize() {
+        Supplier<CustomerPage> loader = counting(page(30, 1));
+
+        underTest.get(30, null, null, CustomerField.ALL, loader);
+        underTest.get(30, "", CustomerService.DEFAULT_PAGE_SIZE, CustomerField.ALL, loader);
+        underTest.get(30, null, 5, CustomerField.ALL, loader);
+        underTest.get(31, null, null, CustomerField.ALL, loader);
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void keysOnTheRequestedFields() throws IOException {
+        Set<CustomerField> emails = CustomerField.parse("email");
+
+        CustomerPageCache.EncodedPage all = underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1)));
+        CustomerPageCache.EncodedPage narrowed = underTest.get(30, null, null, emails,
+                counting(new CustomerPage(List.of(CustomerField.project(page(30, 1).customers().get(0), emails)), null)));
+
+        assertThat(loads).hasValue(2);
+        assertThat(narrowed.eTag()).isNotEqualTo(all.eTag());
+        assertThat(objectMapper.readTree(narrowed.json()).get("customers").get(0).fieldNames())
+                .toIterable()
+                .containsExactlyInAnyOrder("id", "email");
+    }
+
+    @Test
+    void insertsDropThePagesOfTheirAge() {
+        underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1)));
+        underTest.get(40, null, null, CustomerField.ALL, counting(page(40, 2)));
+
+        underTest.invalidateAge(30);
+
+        underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1, 3)));
+        underTest.get(40, null, null, CustomerField.ALL, counting(page(40, 2)));
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void updatesAndRemovalsDropThePagesListingTheCustomer() {
+        underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1, 2)));
+        underTest.get(40, null, null, CustomerField.ALL, counting(page(40, 3)));
+
+        underTest.invalidateCustomers(Set.of(2));
+
+        underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1)));
+        underTest.get(40, null, null, CustomerField.ALL, counting(page(40, 3)));
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void doesNotKeepAPageLoadedDuringAWrite() {
+        underTest.get(30, null, null, CustomerField.ALL, () -> {
+            loads.incrementAndGet();
+            // a write of a customer on this page commits while the page is being read
+            underTest.invalidateCustomers(Set.of(1));
+            return page(30, 1);
+        });
+
+        underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1)));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void keepsAPageLoadedDuringAnUnrelatedWrite() {
+        underTest.get(30, null, null, CustomerField.ALL, () -> {
+            loads.incrementAndGet();
+            // writes to other ages and customers commit while the page is being read
+            underTest.invalidateAge(40);
+            underTest.invalidateCustomers(Set.of(2));
+            return page(30, 1);
+        });
+
+        underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1)));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void doesNotKeepAPageOfAnAgeInvalidatedDuringItsLoad() {
+        underTest.get(30, null, null, CustomerField.ALL, () -> {
+            loads.incrementAndGet();
+            // a new customer of this age commits while the page is being read
+            underTest.invalidateAge(30);
+            return page(30, 1);
+        });
+
+        underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1, 2)));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invalidatesPagesOfAllFieldsListingTheCustomer() {
+        Set<CustomerField> emails = CustomerField.parse("email");
+        underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1)));
+        underTest.get(30, null, null, emails, counting(page(30, 1)));
+
+        underTest.invalidateCustomers(Set.of(1));
+
+        underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1)));
+        underTest.get(30, null, null, emails, counting(page(30, 1)));
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void gzipsLargePagesOnly() throws IOException {
+        int[] manyIds = new int[100];
+        for (int i = 0; i < manyIds.length; i++) {
+            manyIds[i] = i + 1;
+        }
+        CustomerPageCache.EncodedPage small = underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1)));
+        CustomerPageCache.EncodedPage large = underTest.get(40, null, null, CustomerField.ALL, counting(page(40, manyIds)));
+
+        assertThat(small.gzip()).isNull();
+        assertThat(large.gzip()).isNotNull().hasSizeLessThan(large.json().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(large.gzip()))) {
+            assertThat(in.readAllBytes()).isEqualTo(large.json());
+        }
+        assertThat(large.gzipETag()).isNotEqualTo(large.eTag()).startsWith("\"").endsWith("-gzip\"");
+    }
+
+    @Test
+    void reportsHitsAndWeight() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        underTest.bindTo(registry);
+
+        underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1)));
+        underTest.get(30, null, null, CustomerField.ALL, counting(page(30, 1)));
+
+        assertThat(registry.get("cache.gets").tag("cache", "customer-pages").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.weight").tag("cache", "customer-pages").gauge().value()).isPositive();
+    }
+
+    @Test
+    void encodesEveryCallWhenDisabled() {
+        CustomerPageCache disabled = new CustomerPageCache(objectMapper, false, 0, Duration.ofMinutes(10), true);
+        Supplier<CustomerPage> loader = counting(page(30, 1));
+
+        disabled.get(30, null, null, CustomerField.ALL, loader);
+        disabled.get(30, null, null, CustomerField.ALL, loader);
+        disabled.invalidateAge(30);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private Supplier<CustomerPage> counting(CustomerPage page) {
+        return () -> {
+            loads.incrementAndGet();
+            return page;
+        };
+    }
+
+    private static CustomerPage page(int age, int... ids) {
+        List<Customer> customers = new ArrayList<>();
+        for (int id : ids) {
+            customers.add(new Customer(id, "customer" + id, "customer" + id + "@example.com", age));
+        }
+        return new CustomerPage(customers, null);
+    }
+}
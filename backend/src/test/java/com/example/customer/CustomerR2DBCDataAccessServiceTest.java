@@ -0,0 +1,110 @@
+package com.example.customer;
+
+import com.example.AbstractTestcontainers;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerR2DBCDataAccessServiceTest extends AbstractTestcontainers {
+
+    private CustomerR2DBCDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.builder()
+                .option(ConnectionFactoryOptions.DRIVER, "postgresql")
+                .option(ConnectionFactoryOptions.HOST, postgreSQLContainer.getHost())
+                .option(ConnectionFactoryOptions.PORT, postgreSQLContainer.getFirstMappedPort())
+                .option(ConnectionFactoryOptions.DATABASE, postgreSQLContainer.getDatabaseName())
+                .option(ConnectionFactoryOptions.USER, postgreSQLContainer.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, postgreSQLContainer.getPassword())
+                .build();
+        underTest = new CustomerR2DBCDataAccessService(DatabaseClient.create(ConnectionFactories.get(options)));
+    }
+
+    @Test
+    void selectAllCustomersStreamsInIdOrder() {
+        insertCustomers(3, 20);
+
+        List<Customer> actual = underTest.selectAllCustomers().collectList().block();
+
+        assertThat(actual).hasSizeGreaterThanOrEqualTo(3).extracting(Customer::getId).isSorted();
+    }
+
+    @Test
+    void selectCustomerPageByAgeRange() {
+        int age = FAKER.number().numberBetween(1000, 100_000);
+        List<Integer> ids = insertCustomers(3, age);
+
+        assertThat(underTest.selectCustomerPageByAgeRange(age, age, ids.get(0), 10).collectList().block())
+                .extracting(Customer::getId)
+                .containsExactly(ids.get(1), ids.get(2));
+        assertThat(underTest.selectCustomerPageByAge(age, 0, 2).collectList().block())
+                .extracting(Customer::getId)
+                .containsExactly(ids.get(0), ids.get(1));
+    }
+
+    @Test
+    void insertCustomerIfEmailFreeSkipsTakenEmail() {
+        String email = randomEmail();
+        Integer id = underTest.insertCustomerIfEmailFree(new Customer("foo", email, 20)).block();
+
+        assertThat(underTest.selectCustomerById(id).block()).isEqualTo(new Customer(id, "foo", email, 20));
+        assertThat(underTest.insertCustomerIfEmailFree(new Customer("bar", email, 30)).blockOptional()).isEmpty();
+    }
+
+    @Test
+    void removeCustomers() {
+        List<Integer> ids = insertCustomers(3, 20);
+
+        assertThat(underTest.removeCustomerById(ids.get(0)).block()).isTrue();
+        assertThat(underTest.removeCustomerById(ids.get(0)).block()).isFalse();
+        assertThat(underTest.removeCustomersByIds(List.of(ids.get(1), ids.get(2), -1)).block()).isEqualTo(2);
+        assertThat(underTest.selectCustomerById(ids.get(2)).blockOptional()).isEmpty();
+    }
+
+    @Test
+    void updateCustomerById() {
+        Integer id = insertCustomers(1, 20).get(0);
+        String email = randomEmail();
+
+        CustomerUpdateResult actual = underTest.updateCustomerById(id, new CustomerUpdateRequest("bar", email, null)).block();
+
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.UPDATED);
+        assertThat(actual.customer()).isEqualTo(new Customer(id, "bar", email, 20));
+        assertThat(underTest.updateCustomerById(id, new CustomerUpdateRequest("bar", null, 20)).block().status())
+                .isEqualTo(CustomerUpdateResult.Status.UNCHANGED);
+        assertThat(underTest.updateCustomerById(-1, new CustomerUpdateRequest("bar", null, null)).block().status())
+                .isEqualTo(CustomerUpdateResult.Status.NOT_FOUND);
+    }
+
+    @Test
+    void updateCustomerByIdReportsEmailTaken() {
+        List<Integer> ids = insertCustomers(2, 20);
+        String taken = underTest.selectCustomerById(ids.get(1)).block().getEmail();
+
+        assertThat(underTest.updateCustomerById(ids.get(0), new CustomerUpdateRequest(null, taken, null)).block().status())
+                .isEqualTo(CustomerUpdateResult.Status.EMAIL_TAKEN);
+    }
+
+    private List<Integer> insertCustomers(int count, int age) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(underTest.insertCustomerIfEmailFree(
+                    new Customer(FAKER.name().fullName(), randomEmail(), age)).block());
+        }
+        return ids;
+    }
+
+    private static String randomEmail() {
+        return UUID.randomUUID() + "@" + FAKER.internet().domainName();
+    }
+}
@@ -9,6 +9,8 @@ import java.sql.SQLException;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class CustomerRowMapperTest {
@@ -21,9 +23,35 @@ class CustomerRowMapperTest {
         when(rs.getInt("age")).thenReturn(19);
         when(rs.getString("name")).thenReturn("foo");
         when(rs.getString("email")).thenReturn("foo@bar.com");
+        when(rs.getLong("version")).thenReturn(3L);
 
         Customer actual = underTest.mapRow(rs, 1);
         Customer expected = new Customer(1, "foo", "foo@bar.com", 19);
         assertThat(actual).isEqualTo(expected);
+        assertThat(actual.getVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void mapRowForFieldsReadsOnlyThoseColumns() throws SQLException {
+        CustomerRowMapper underTest = new CustomerRowMapper();
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getInt("id")).thenReturn(1);
+        when(rs.getString("email")).thenReturn("foo@bar.com");
+        when(rs.getLong("version")).thenReturn(3L);
+
+        Customer actual = underTest.forFields(CustomerField.parse("email")).mapRow(rs, 1);
+        assertThat(actual.getId()).isEqualTo(1);
+        assertThat(actual.getEmail()).isEqualTo("foo@bar.com");
+        assertThat(actual.getName()).isNull();
+        assertThat(actual.getAge()).isNull();
+        assertThat(actual.getVersion()).isEqualTo(3);
+        verify(rs, never()).getString("name");
+        verify(rs, never()).getInt("age");
+    }
+
+    @Test
+    void forAllFieldsIsTheMapperItself() {
+        CustomerRowMapper underTest = new CustomerRowMapper();
+        assertThat(underTest.forFields(CustomerField.ALL)).isSameAs(underTest);
     }
 }
\ No newline at end of file
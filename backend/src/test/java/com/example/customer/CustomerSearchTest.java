@@ -0,0 +1,47 @@
+package com.example.customer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerSearchTest {
+
+    @Test
+    void trigramsAndSimilarityMatchPgTrgm() {
+        // SELECT show_trgm('word'), similarity('word', 'two words')
+        assertThat(CustomerSearch.trigrams("Word")).containsExactlyInAnyOrder("  w", " wo", "wor", "ord", "rd ");
+        assertThat(CustomerSearch.similarity(CustomerSearch.trigrams("word"), CustomerSearch.trigrams("two words")))
+                .isEqualTo(0.36363637f);
+        assertThat(CustomerSearch.trigrams("foo.bar@x.io")).contains("  f", "foo", "  b", "bar", "  x", " x ", "io ");
+        assertThat(CustomerSearch.similarity(CustomerSearch.trigrams("word"), CustomerSearch.trigrams(""))).isZero();
+    }
+
+    @Test
+    void ranksPrefixMatchesThenSimilarityThenId() {
+        CustomerSearch underTest = new CustomerSearch("ton", 10);
+
+        underTest.offer(new Customer(1, "Anton", "anton@bar.com", 30));
+        underTest.offer(new Customer(2, "Tony", "tony@bar.com", 30));
+        underTest.offer(new Customer(3, "Ivy", "ivy@bar.com", 30));
+        underTest.offer(new Customer(4, "Ton", "t@bar.com", 30));
+        underTest.offer(new Customer(5, "Antonia", "antonia@bar.com", 30));
+
+        assertThat(underTest.results()).extracting(Customer::getId).containsExactly(4, 2, 1, 5);
+    }
+
+    @Test
+    void matchesSimilarValuesAndKeepsTheBestWithinTheLimit() {
+        CustomerSearch underTest = new CustomerSearch("jonathan", 1);
+
+        underTest.offer(new Customer(1, "Jonathon", "j@bar.com", 30));
+        underTest.offer(new Customer(2, "Jonathan", "jonathan@bar.com", 30));
+        underTest.offer(new Customer(3, "Nathan", "nathan@bar.com", 30));
+
+        assertThat(underTest.results()).extracting(Customer::getId).containsExactly(2);
+    }
+
+    @Test
+    void escapeLikeMatchesWildcardsLiterally() {
+        assertThat(CustomerSearch.escapeLike("100%_a\\b")).isEqualTo("100\\%\\_a\\\\b");
+    }
+}
@@ -2,6 +2,8 @@ package com.example.customer;
 
 import com.example.exception.CreateCustomerInvalidatedException;
 import com.example.exception.EmailTakenException;
+import com.example.exception.InvalidPageRequestException;
+import com.example.exception.InvalidSearchRequestException;
 import com.example.exception.ResourceNotFoundException;
 import com.example.exception.UpdateCustomerInvalidatedException;
 import org.junit.jupiter.api.AfterEach;
@@ -13,10 +15,17 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -44,6 +53,152 @@ class CustomerServiceTest {
         verify(customerDAO).selectCustomerByAge(age);
     }
 
+    @Test
+    void getFirstCustomerPage() {
+        Customer customer1 = new Customer(1, "foo", "foo@bar.com", 30);
+        Customer customer2 = new Customer(2, "bar", "bar@bar.com", 30);
+        Customer customer3 = new Customer(3, "baz", "baz@bar.com", 30);
+        when(customerDAO.selectCustomerPage(0, 3)).thenReturn(List.of(customer1, customer2, customer3));
+
+        CustomerPage actual = underTest.getCustomers(null, null, null, null, 2);
+        assertThat(actual.customers()).containsExactly(customer1, customer2);
+        assertThat(actual.nextCursor()).isEqualTo(CustomerCursor.encode(2));
+    }
+
+    @Test
+    void getNextCustomerPageByAge() {
+        Integer age = 30;
+        Customer customer3 = new Customer(3, "baz", "baz@bar.com", age);
+        when(customerDAO.selectCustomerPageByAge(age, 2, 3)).thenReturn(List.of(customer3));
+
+        CustomerPage actual = underTest.getCustomers(age, null, null, CustomerCursor.encode(2), 2);
+        assertThat(actual.customers()).containsExactly(customer3);
+        assertThat(actual.nextCursor()).isNull();
+    }
+
+    @Test
+    void getCustomerPageByAgeRange() {
+        Customer customer = new Customer(3, "baz", "baz@bar.com", 35);
+        when(customerDAO.selectCustomerPageByAgeRange(30, 40, 0, 3)).thenReturn(List.of(customer));
+
+        CustomerPage actual = underTest.getCustomers(null, 30, 40, null, 2);
+        assertThat(actual.customers()).containsExactly(customer);
+    }
+
+    @Test
+    void getCustomerPageByOpenAgeRange() {
+        underTest.getCustomers(null, 30, null, null, 2);
+        verify(customerDAO).selectCustomerPageByAgeRange(30, Integer.MAX_VALUE, 0, 3);
+
+        underTest.getCustomers(null, null, 40, null, 2);
+        verify(customerDAO).selectCustomerPageByAgeRange(0, 40, 0, 3);
+    }
+
+    @Test
+    void willThrowWhenGetCustomersCombinesAgeAndAgeRange() {
+        assertThatThrownBy(() -> underTest.getCustomers(30, 20, null, null, 10))
+                .isInstanceOf(InvalidPageRequestException.class)
+                .hasMessageContaining("Age cannot be combined with minAge or maxAge");
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void willThrowWhenGetCustomersWithInvertedAgeRange() {
+        assertThatThrownBy(() -> underTest.getCustomers(null, 40, 30, null, 10))
+                .isInstanceOf(InvalidPageRequestException.class)
+                .hasMessageContaining("minAge must not be greater than maxAge");
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void getCustomerStats() {
+        when(customerDAO.countCustomersByAge()).thenReturn(new TreeMap<>(Map.of(25, 2L, 31, 1L, 38, 1L)));
+
+        CustomerStats actual = underTest.getCustomerStats();
+        assertThat(actual.total()).isEqualTo(4);
+        assertThat(actual.minAge()).isEqualTo(25);
+        assertThat(actual.maxAge()).isEqualTo(38);
+        assertThat(actual.meanAge()).isEqualTo(29.75);
+        assertThat(actual.customersByAge()).containsExactly(entry(25, 2L), entry(31, 1L), entry(38, 1L));
+        assertThat(actual.ageHistogram()).containsExactly(
+                new CustomerStats.AgeBucket(20, 29, 2),
+                new CustomerStats.AgeBucket(30, 39, 2)
+        );
+        verify(customerDAO, never()).selectAllCustomers();
+    }
+
+    @Test
+    void getCustomerStatsWithoutCustomers() {
+        when(customerDAO.countCustomersByAge()).thenReturn(new TreeMap<>());
+
+        CustomerStats actual = underTest.getCustomerStats();
+        assertThat(actual.total()).isZero();
+        assertThat(actual.minAge()).isNull();
+        assertThat(actual.meanAge()).isNull();
+        assertThat(actual.ageHistogram()).isEmpty();
+    }
+
+    @Test
+    void getCustomersUsesDefaultAndMaximumPageSize() {
+        underTest.getCustomers(null, null, null, null, null);
+        verify(customerDAO).selectCustomerPage(0, CustomerService.DEFAULT_PAGE_SIZE + 1);
+
+        underTest.getCustomers(null, null, null, null, Integer.MAX_VALUE);
+        verify(customerDAO).selectCustomerPage(0, CustomerService.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    void willThrowWhenGetCustomersWithInvalidCursor() {
+        assertThatThrownBy(() -> underTest.getCustomers(null, null, null, "not-a-cursor", 10))
+                .isInstanceOf(InvalidPageRequestException.class)
+                .hasMessageContaining("Cursor [not-a-cursor] is invalid");
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void willThrowWhenGetCustomersWithNonPositiveLimit() {
+        assertThatThrownBy(() -> underTest.getCustomers(null, null, null, null, 0))
+                .isInstanceOf(InvalidPageRequestException.class)
+                .hasMessageContaining("Limit must be a positive number");
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void getCustomerPageForFieldsUsesTheNarrowedRead() {
+        Set<CustomerField> fields = CustomerField.parse("email");
+        Customer customer = new Customer();
+        customer.setId(3);
+        customer.setEmail("baz@bar.com");
+        when(customerDAO.selectCustomerFieldsPageByAgeRange(30, Integer.MAX_VALUE, 0, 3, fields))
+                .thenReturn(List.of(customer));
+
+        CustomerPage actual = underTest.getCustomers(null, 30, null, null, 2, fields);
+        assertThat(actual.customers()).containsExactly(customer);
+        verify(customerDAO, never()).selectCustomerPageByAgeRange(anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchCustomersStripsTheTermAndCapsTheLimit() {
+        Customer tony = new Customer(1, "Tony", "tony@gmail.com", 30);
+        when(customerDAO.searchCustomers("ton", CustomerService.MAX_SEARCH_LIMIT)).thenReturn(List.of(tony));
+
+        assertThat(underTest.searchCustomers(" ton ", 5000)).containsExactly(tony);
+        underTest.searchCustomers("ton", null);
+        verify(customerDAO).searchCustomers("ton", CustomerService.DEFAULT_SEARCH_LIMIT);
+    }
+
+    @Test
+    void willThrowWhenSearchTermIsBlankOrTooLong() {
+        assertThatThrownBy(() -> underTest.searchCustomers("  ", null))
+                .isInstanceOf(InvalidSearchRequestException.class)
+                .hasMessageContaining("must not be blank");
+        assertThatThrownBy(() -> underTest.searchCustomers("a".repeat(CustomerService.MAX_SEARCH_TERM_LENGTH + 1), null))
+                .isInstanceOf(InvalidSearchRequestException.class);
+        assertThatThrownBy(() -> underTest.searchCustomers("ton", 0))
+                .isInstanceOf(InvalidSearchRequestException.class);
+        verifyNoInteractions(customerDAO);
+    }
+
     @Test
     void canGetCustomerById() {
         Integer id = 1;
@@ -69,11 +224,12 @@ class CustomerServiceTest {
         String email = "foo@bar.com";
         Integer age = 30;
         CustomerRegistrationRequest request = new CustomerRegistrationRequest("foo", email, age);
-        when(customerDAO.existsCustomerWithEmail(email)).thenReturn(false);
+        when(customerDAO.insertCustomerIfEmailFree(any())).thenReturn(Optional.of(7));
 
-        underTest.addCustomer(request);
+        Integer id = underTest.addCustomer(request);
+        assertThat(id).isEqualTo(7);
         ArgumentCaptor<Customer> captor = ArgumentCaptor.forClass(Customer.class);
-        verify(customerDAO).insertCustomer(captor.capture());
+        verify(customerDAO).insertCustomerIfEmailFree(captor.capture());
         assertThat(captor.getValue().getName()).isEqualTo(request.name());
         assertThat(captor.getValue().getEmail()).isEqualTo(request.email());
         assertThat(captor.getValue().getAge()).isEqualTo(request.age());
@@ -84,13 +240,13 @@ class CustomerServiceTest {
         String email = "foo@bar.com";
         Integer age = 30;
         CustomerRegistrationRequest request = new CustomerRegistrationRequest("foo", email, age);
-        when(customerDAO.existsCustomerWithEmail(email)).thenReturn(true);
+        when(customerDAO.insertCustomerIfEmailFree(any())).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> underTest.addCustomer(request))
                 .isInstanceOf(EmailTakenException.class)
                 .hasMessageContaining("Email already taken");
 
-        verify(customerDAO, never()).insertCustomer(any());
+        verify(customerDAO, never()).existsCustomerWithEmail(any());
     }
 
     @Test
@@ -101,9 +257,9 @@ class CustomerServiceTest {
 
         assertThatThrownBy(() -> underTest.addCustomer(request))
                 .isInstanceOf(CreateCustomerInvalidatedException.class)
-                .hasMessageContaining("The age or email is invalid");
+                .hasMessage("Email is invalid");
 
-        verify(customerDAO, never()).insertCustomer(any());
+        verify(customerDAO, never()).insertCustomerIfEmailFree(any());
     }
 
     @Test
@@ -114,115 +270,167 @@ class CustomerServiceTest {
 
         assertThatThrownBy(() -> underTest.addCustomer(request))
                 .isInstanceOf(CreateCustomerInvalidatedException.class)
-                .hasMessageContaining("The age or email is invalid");
+                .hasMessage("Age is invalid");
+
+        verify(customerDAO, never()).insertCustomerIfEmailFree(any());
+    }
 
-        verify(customerDAO, never()).insertCustomer(any());
+    @Test
+    void addCustomersReportsFailuresPerRow() {
+        List<CustomerRegistrationRequest> requests = new ArrayList<>();
+        requests.add(new CustomerRegistrationRequest("foo", "foo@bar.com", 30));
+        requests.add(new CustomerRegistrationRequest("bar", "bar", 30));
+        requests.add(new CustomerRegistrationRequest("baz", "baz@bar.com", 1));
+        requests.add(new CustomerRegistrationRequest("foo", "foo@bar.com", 31));
+        requests.add(new CustomerRegistrationRequest("qux", "qux@bar.com", 40));
+        requests.add(null);
+        when(customerDAO.insertCustomers(any())).thenReturn(Set.of("qux@bar.com"));
+
+        BulkRegistrationResult actual = underTest.addCustomers(requests);
+
+        ArgumentCaptor<List<Customer>> captor = ArgumentCaptor.forClass(List.class);
+        verify(customerDAO).insertCustomers(captor.capture());
+        assertThat(captor.getValue()).extracting(Customer::getEmail).containsExactly("foo@bar.com", "qux@bar.com");
+        assertThat(actual.received()).isEqualTo(6);
+        assertThat(actual.inserted()).isEqualTo(1);
+        assertThat(actual.failures()).containsExactly(
+                new BulkRegistrationFailure(1, "bar", "Email is invalid"),
+                new BulkRegistrationFailure(2, "baz@bar.com", "Age is invalid"),
+                new BulkRegistrationFailure(3, "foo@bar.com", "Email is repeated in the batch"),
+                new BulkRegistrationFailure(4, "qux@bar.com", "Email already taken"),
+                new BulkRegistrationFailure(5, null, "Record is empty")
+        );
+    }
+
+    @Test
+    void addCustomerReportsEveryInvalidField() {
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(" ", "foo@bar", 15);
+
+        assertThatThrownBy(() -> underTest.addCustomer(request))
+                .isInstanceOf(CreateCustomerInvalidatedException.class)
+                .hasMessage("Name is missing, Email is invalid, Age is invalid");
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void addCustomersSkipsDAOWhenNothingIsValid() {
+        BulkRegistrationResult actual = underTest.addCustomers(
+                List.of(new CustomerRegistrationRequest(null, "foo@bar.com", 30))
+        );
+
+        assertThat(actual.inserted()).isZero();
+        assertThat(actual.failures()).containsExactly(new BulkRegistrationFailure(0, "foo@bar.com", "Name is missing"));
+        verify(customerDAO, never()).insertCustomers(any());
     }
 
     @Test
     void canRemoveCustomerById() {
         Integer id = 1;
-        Customer customer = new Customer(id, "foo", "foo@bar.com", 30);
-        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        when(customerDAO.removeCustomerById(id)).thenReturn(true);
         underTest.removeCustomerById(id);
         verify(customerDAO).removeCustomerById(id);
+        verify(customerDAO, never()).selectCustomerById(any());
     }
 
     @Test
     void willThrowWhenRemoveCustomerByNonExistentId() {
         Integer id = -1;
-        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.empty());
+        when(customerDAO.removeCustomerById(id)).thenReturn(false);
         assertThatThrownBy(() -> underTest.removeCustomerById(id))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("Customer with the requested id is not found");
-        verify(customerDAO, never()).removeCustomerById(any());
     }
 
     @Test
-    void updateCustomerNameById() {
-        Integer id = 1;
-        String originalName = "foo";
-        String originalEmail = "foo@bar.com";
-        Integer originalAge = 30;
-        Customer customer = new Customer(id, originalName, originalEmail, originalAge);
-        CustomerUpdateRequest request = new CustomerUpdateRequest("bar", null, null);
-        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+    void canRemoveCustomersByIds() {
+        when(customerDAO.removeCustomersByIds(Set.of(1, 2, 3))).thenReturn(2);
 
-        underTest.updateCustomerById(id, request);
-        ArgumentCaptor<Customer> captor = ArgumentCaptor.forClass(Customer.class);
-        verify(customerDAO).updateCustomer(captor.capture());
-        assertThat(captor.getValue().getName()).isEqualTo(request.name());
-        assertThat(captor.getValue().getEmail()).isEqualTo(originalEmail);
-        assertThat(captor.getValue().getAge()).isEqualTo(originalAge);
+        BulkRemovalResult actual = underTest.removeCustomersByIds(Arrays.asList(1, 2, 2, null, 3));
+        assertThat(actual).isEqualTo(new BulkRemovalResult(3, 2));
     }
 
     @Test
-    void updateCustomerEmailById() {
-        Integer id = 1;
-        String originalName = "foo";
-        String originalEmail = "foo@bar.com";
-        Integer originalAge = 30;
-        Customer customer = new Customer(id, originalName, originalEmail, originalAge);
-        CustomerUpdateRequest request = new CustomerUpdateRequest(null, "bar@bar.com", null);
-        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
-        when(customerDAO.existsCustomerWithEmail(request.email())).thenReturn(false);
+    void removeCustomersByIdsSkipsDaoWhenNoIds() {
+        BulkRemovalResult actual = underTest.removeCustomersByIds(List.of());
+        assertThat(actual).isEqualTo(new BulkRemovalResult(0, 0));
+        verifyNoInteractions(customerDAO);
+    }
 
-        underTest.updateCustomerById(id, request);
-        ArgumentCaptor<Customer> captor = ArgumentCaptor.forClass(Customer.class);
-        verify(customerDAO).updateCustomer(captor.capture());
-        assertThat(captor.getValue().getName()).isEqualTo(originalName);
-        assertThat(captor.getValue().getEmail()).isEqualTo(request.email());
-        assertThat(captor.getValue().getAge()).isEqualTo(originalAge);
+    @Test
+    void updateCustomerById() {
+        Integer id = 1;
+        CustomerUpdateRequest request = new CustomerUpdateRequest("bar", "bar@bar.com", 40);
+        Customer updated = new Customer(id, "bar", "bar@bar.com", 40);
+        when(customerDAO.updateCustomerById(id, request)).thenReturn(CustomerUpdateResult.updated(updated));
+
+        Customer actual = underTest.updateCustomerById(id, request);
+        assertThat(actual).isEqualTo(updated);
+        verify(customerDAO, never()).selectCustomerById(any());
+        verify(customerDAO, never()).existsCustomerWithEmail(any());
     }
 
     @Test
-    void updateCustomerAgeById() {
+    void updateCustomerByIdTreatsBlankFieldsAsAbsent() {
         Integer id = 1;
-        String originalName = "foo";
-        String originalEmail = "foo@bar.com";
-        Integer originalAge = 30;
-        Customer customer = new Customer(id, originalName, originalEmail, originalAge);
-        CustomerUpdateRequest request = new CustomerUpdateRequest(null, null, 40);
-        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        CustomerUpdateRequest request = new CustomerUpdateRequest(" ", "", 40);
+        CustomerUpdateRequest expectedUpdate = new CustomerUpdateRequest(null, null, 40);
+        when(customerDAO.updateCustomerById(id, expectedUpdate))
+                .thenReturn(CustomerUpdateResult.updated(new Customer(id, "foo", "foo@bar.com", 40)));
 
         underTest.updateCustomerById(id, request);
-        ArgumentCaptor<Customer> captor = ArgumentCaptor.forClass(Customer.class);
-        verify(customerDAO).updateCustomer(captor.capture());
-        assertThat(captor.getValue().getName()).isEqualTo(originalName);
-        assertThat(captor.getValue().getEmail()).isEqualTo(originalEmail);
-        assertThat(captor.getValue().getAge()).isEqualTo(request.age());
+        verify(customerDAO).updateCustomerById(id, expectedUpdate);
+    }
+
+    @Test
+    void doNotUpdateCustomerWhenRequestIsEmpty() {
+        CustomerUpdateRequest request = new CustomerUpdateRequest(null, " ", null);
+
+        assertThatThrownBy(() -> underTest.updateCustomerById(1, request))
+                .isInstanceOf(UpdateCustomerInvalidatedException.class)
+                .hasMessageContaining("No valid, new data is received, no update is made");
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void doNotUpdateCustomerWithInvalidFields() {
+        CustomerUpdateRequest request = new CustomerUpdateRequest("foo", "foo.bar.com", 3);
+
+        assertThatThrownBy(() -> underTest.updateCustomerById(1, request))
+                .isInstanceOf(UpdateCustomerInvalidatedException.class)
+                .hasMessage("Email is invalid, Age is invalid");
+        verifyNoInteractions(customerDAO);
     }
 
     @Test
     void doNotUpdateCustomerWhenNoNewData() {
         Integer id = 1;
-        String originalName = "foo";
-        String originalEmail = "foo@bar.com";
-        Integer originalAge = 30;
-        Customer customer = new Customer(id, originalName, originalEmail, originalAge);
-        CustomerUpdateRequest request = new CustomerUpdateRequest(originalName, originalEmail, originalAge);
-        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        CustomerUpdateRequest request = new CustomerUpdateRequest("foo", "foo@bar.com", 30);
+        when(customerDAO.updateCustomerById(id, request)).thenReturn(CustomerUpdateResult.unchanged());
 
         assertThatThrownBy(() -> underTest.updateCustomerById(id, request))
                 .isInstanceOf(UpdateCustomerInvalidatedException.class)
                 .hasMessageContaining("No valid, new data is received, no update is made");
-        verify(customerDAO, never()).removeCustomerById(any());
     }
 
     @Test
     void doNotUpdateCustomerWhenEmailIsTaken() {
         Integer id = 1;
-        String originalName = "foo";
-        String originalEmail = "foo@bar.com";
-        Integer originalAge = 30;
-        Customer customer = new Customer(id, originalName, originalEmail, originalAge);
         CustomerUpdateRequest request = new CustomerUpdateRequest(null, "bar@bar.com", null);
-        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
-        when(customerDAO.existsCustomerWithEmail(request.email())).thenReturn(true);
+        when(customerDAO.updateCustomerById(id, request)).thenReturn(CustomerUpdateResult.emailTaken());
 
         assertThatThrownBy(() -> underTest.updateCustomerById(id, request))
                 .isInstanceOf(EmailTakenException.class)
                 .hasMessageContaining("Email already taken");
-        verify(customerDAO, never()).removeCustomerById(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void willThrowWhenUpdateCustomerByNonExistentId() {
+        Integer id = -1;
+        CustomerUpdateRequest request = new CustomerUpdateRequest("bar", null, null);
+        when(customerDAO.updateCustomerById(id, request)).thenReturn(CustomerUpdateResult.notFound());
+
+        assertThatThrownBy(() -> underTest.updateCustomerById(id, request))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("Customer with id [%s] is not found".formatted(id));
+    }
+}
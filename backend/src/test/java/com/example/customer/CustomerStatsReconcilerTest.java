@@ -0,0 +1,44 @@
+package com.example.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerStatsReconcilerTest {
+
+    private CustomerStatsReconciler underTest;
+    private SimpleMeterRegistry registry;
+    @Mock CustomerDAO customerDAO;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        underTest = new CustomerStatsReconciler(customerDAO, registry);
+    }
+
+    @Test
+    void countsCorrectedAges() {
+        when(customerDAO.reconcileCustomerCountsByAge()).thenReturn(2, 0);
+
+        underTest.reconcile();
+        underTest.reconcile();
+
+        assertThat(registry.get("customer.stats.reconciled.ages").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void survivesFailures() {
+        when(customerDAO.reconcileCustomerCountsByAge()).thenThrow(new IllegalStateException("database is down"));
+
+        underTest.reconcile();
+
+        assertThat(registry.get("customer.stats.reconciled.ages").counter().count()).isZero();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerValidatorTest {
+    // the expression the scanner replaced
+    private static final Pattern EMAIL_REGEX =
+            Pattern.compile("^[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,6}$", Pattern.CASE_INSENSITIVE);
+
+    @Test
+    void scansEmails() {
+        assertThat(CustomerValidator.isValidEmail("tony.lo+news@mail.example.COM")).isTrue();
+        assertThat(CustomerValidator.isValidEmail("a@b.io")).isTrue();
+        assertThat(CustomerValidator.isValidEmail("a@..io")).isTrue();
+        assertThat(CustomerValidator.isValidEmail("")).isFalse();
+        assertThat(CustomerValidator.isValidEmail("@b.io")).isFalse();
+        assertThat(CustomerValidator.isValidEmail("a@.io")).isFalse();
+        assertThat(CustomerValidator.isValidEmail("a@b@c.io")).isFalse();
+        assertThat(CustomerValidator.isValidEmail("a@b.c")).isFalse();
+        assertThat(CustomerValidator.isValidEmail("a@b.abcdefg")).isFalse();
+        assertThat(CustomerValidator.isValidEmail("a@b.i0")).isFalse();
+        assertThat(CustomerValidator.isValidEmail("a b@c.io")).isFalse();
+        assertThat(CustomerValidator.isValidEmail("\u00e9@b.io")).isFalse();
+    }
+
+    @Test
+    void acceptsWhatTheRegexAccepted() {
+        char[] alphabet = "aZ09._%+-@.!\u00e9 ".toCharArray();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            char[] email = new char[random.nextInt(14)];
+            for (int j = 0; j < email.length; j++) {
+                email[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String candidate = new String(email);
+            assertThat(CustomerValidator.isValidEmail(candidate))
+                    .as(candidate)
+                    .isEqualTo(EMAIL_REGEX.matcher(candidate).matches());
+        }
+    }
+
+    @Test
+    void collectsEveryRegistrationViolation() {
+        assertThat(CustomerValidator.validate(new CustomerRegistrationRequest("foo", "foo@bar.com", 16))).isZero();
+        assertThat(CustomerValidator.validate((CustomerRegistrationRequest) null)).isEqualTo(CustomerValidator.RECORD_EMPTY);
+
+        int violations = CustomerValidator.validate(new CustomerRegistrationRequest(" ", null, 15));
+        assertThat(violations).isEqualTo(
+                CustomerValidator.NAME_MISSING | CustomerValidator.EMAIL_INVALID | CustomerValidator.AGE_INVALID);
+        assertThat(CustomerValidator.describe(violations)).isEqualTo("Name is missing, Email is invalid, Age is invalid");
+    }
+
+    @Test
+    void checksOnlyTheFieldsAnUpdateSets() {
+        assertThat(CustomerValidator.validate(new CustomerUpdateRequest("foo", null, null))).isZero();
+        assertThat(CustomerValidator.validate(new CustomerUpdateRequest(null, "foo", 40)))
+                .isEqualTo(CustomerValidator.EMAIL_INVALID);
+        assertThat(CustomerValidator.validate(new CustomerUpdateRequest(null, null, 15)))
+                .isEqualTo(CustomerValidator.AGE_INVALID);
+    }
+}
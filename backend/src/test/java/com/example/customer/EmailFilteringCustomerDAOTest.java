@@ -0,0 +1,145 @@
+package com.example.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailFilteringCustomerDAOTest {
+
+    private EmailFilteringCustomerDAO underTest;
+    private CustomerEmailFilter emailFilter;
+    @Mock CustomerDAO customerDAO;
+
+    @BeforeEach
+    void setUp() {
+        emailFilter = new CustomerEmailFilter(customerDAO, 1000, 0.01, 0.2);
+        underTest = new EmailFilteringCustomerDAO(customerDAO, emailFilter);
+    }
+
+    @Test
+    void goesToTheDatabaseUntilTheFilterIsBuilt() {
+        when(customerDAO.existsCustomerWithEmail("foo@bar.com")).thenReturn(true);
+
+        assertThat(underTest.existsCustomerWithEmail("foo@bar.com")).isTrue();
+        verify(customerDAO).existsCustomerWithEmail("foo@bar.com");
+    }
+
+    @Test
+    void answersUnknownEmailsWithoutTheDatabase() {
+        buildFilterWith("foo@bar.com");
+
+        assertThat(underTest.existsCustomerWithEmail("bar@bar.com")).isFalse();
+        verify(customerDAO, never()).existsCustomerWithEmail(any());
+    }
+
+    @Test
+    void confirmsPossibleHitsWithTheDatabase() {
+        buildFilterWith("foo@bar.com");
+        when(customerDAO.existsCustomerWithEmail("foo@bar.com")).thenReturn(true);
+
+        assertThat(underTest.existsCustomerWithEmail("foo@bar.com")).isTrue();
+        verify(customerDAO).existsCustomerWithEmail("foo@bar.com");
+    }
+
+    @Test
+    void insertCustomerAddsTheEmail() {
+        buildFilterWith("foo@bar.com");
+        Customer customer = new Customer("bar", "bar@bar.com", 30);
+        when(customerDAO.existsCustomerWithEmail("bar@bar.com")).thenReturn(true);
+
+        underTest.insertCustomer(customer);
+        verify(customerDAO).insertCustomer(customer);
+        assertThat(underTest.existsCustomerWithEmail("bar@bar.com")).isTrue();
+    }
+
+    @Test
+    void updateCustomerAddsTheNewEmail() {
+        buildFilterWith("foo@bar.com");
+        Customer customer = new Customer(1, "foo", "new@bar.com", 30);
+        when(customerDAO.existsCustomerWithEmail("new@bar.com")).thenReturn(true);
+
+        underTest.updateCustomer(customer);
+        verify(customerDAO).updateCustomer(customer);
+        assertThat(underTest.existsCustomerWithEmail("new@bar.com")).isTrue();
+    }
+
+    @Test
+    void ignoresTheCaseOfEmails() {
+        buildFilterWith("Foo@Bar.com");
+        when(customerDAO.existsCustomerWithEmail("foo@BAR.com")).thenReturn(true);
+
+        assertThat(underTest.existsCustomerWithEmail("foo@BAR.com")).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keepsWritesThatCommitWhileARebuildScans() {
+        buildFilterWith("foo@bar.com");
+        Customer committedDuringScan = new Customer("bar", "bar@bar.com", 30);
+        Customer inFlightAtSwap = new Customer("baz", "baz@bar.com", 30);
+        // both writes start before the rebuild; the scan sees neither row
+        emailFilter.add(committedDuringScan.getEmail());
+        emailFilter.add(inFlightAtSwap.getEmail());
+        doAnswer(invocation -> {
+            emailFilter.addCompleted(committedDuringScan.getEmail());
+            invocation.getArgument(0, Consumer.class).accept("foo@bar.com");
+            return null;
+        }).when(customerDAO).forEachCustomerEmail(any());
+
+        emailFilter.rebuild();
+
+        assertThat(emailFilter.mightContain("bar@bar.com")).isTrue();
+        assertThat(emailFilter.mightContain("baz@bar.com")).isTrue();
+    }
+
+    @Test
+    void countsEachWrittenEmailOnce() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        emailFilter.bindTo(registry);
+        buildFilterWith("foo@bar.com");
+
+        underTest.insertCustomer(new Customer("bar", "bar@bar.com", 30));
+
+        assertThat(registry.get("customer.email.filter.emails").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countsEachEmailOnceInARebuiltFilter() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        emailFilter.bindTo(registry);
+        buildFilterWith("foo@bar.com");
+        Customer writtenDuringScan = new Customer("bar", "bar@bar.com", 30);
+        Customer inFlightAtSwap = new Customer("baz", "baz@bar.com", 30);
+        emailFilter.add(inFlightAtSwap.getEmail());
+        doAnswer(invocation -> {
+            underTest.insertCustomer(writtenDuringScan);
+            invocation.getArgument(0, Consumer.class).accept("foo@bar.com");
+            return null;
+        }).when(customerDAO).forEachCustomerEmail(any());
+
+        emailFilter.rebuild();
+
+        assertThat(registry.get("customer.email.filter.emails").gauge().value()).isEqualTo(3);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void buildFilterWith(String email) {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(email);
+            return null;
+        }).when(customerDAO).forEachCustomerEmail(any());
+        emailFilter.rebuildIfDegraded();
+    }
+}
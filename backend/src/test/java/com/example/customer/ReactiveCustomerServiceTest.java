@@ -0,0 +1,123 @@
+package com.example.customer;
+
+import com.example.exception.CreateCustomerInvalidatedException;
+import com.example.exception.EmailTakenException;
+import com.example.exception.InvalidPageRequestException;
+import com.example.exception.ResourceNotFoundException;
+import com.example.exception.UpdateCustomerInvalidatedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCustomerServiceTest {
+
+    private ReactiveCustomerService underTest;
+    @Mock ReactiveCustomerDAO customerDAO;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ReactiveCustomerService(customerDAO);
+    }
+
+    @Test
+    void getCustomersFetchesOneExtraRowForTheNextCursor() {
+        Customer customer1 = new Customer(1, "foo", "foo@bar.com", 30);
+        Customer customer2 = new Customer(2, "bar", "bar@bar.com", 30);
+        when(customerDAO.selectCustomerPageByAgeRange(20, Integer.MAX_VALUE, 0, 2))
+                .thenReturn(Flux.just(customer1, customer2));
+
+        CustomerPage actual = underTest.getCustomers(null, 20, null, null, 1).block();
+
+        assertThat(actual.customers()).containsExactly(customer1);
+        assertThat(actual.nextCursor()).isEqualTo(CustomerCursor.encode(1));
+    }
+
+    @Test
+    void getCustomersRejectsInvalidRequestsBeforeSubscribing() {
+        assertThatThrownBy(() -> underTest.getCustomers(30, 20, null, null, null))
+                .isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> underTest.getCustomers(null, null, null, null, 0))
+                .isInstanceOf(InvalidPageRequestException.class);
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void getCustomerByIdFailsWhenMissing() {
+        when(customerDAO.selectCustomerById(1)).thenReturn(Mono.empty());
+
+        assertThatThrownBy(() -> underTest.getCustomerById(1).block())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Customer with id [1] is not found");
+    }
+
+    @Test
+    void addCustomer() {
+        when(customerDAO.insertCustomerIfEmailFree(any())).thenReturn(Mono.just(7));
+
+        assertThat(underTest.addCustomer(new CustomerRegistrationRequest("foo", "foo@bar.com", 30)).block()).isEqualTo(7);
+    }
+
+    @Test
+    void addCustomerFailsWhenEmailTaken() {
+        when(customerDAO.insertCustomerIfEmailFree(any())).thenReturn(Mono.empty());
+
+        assertThatThrownBy(() -> underTest.addCustomer(new CustomerRegistrationRequest("foo", "foo@bar.com", 30)).block())
+                .isInstanceOf(EmailTakenException.class);
+    }
+
+    @Test
+    void addCustomerRejectsInvalidRequest() {
+        assertThatThrownBy(() -> underTest.addCustomer(new CustomerRegistrationRequest("foo", "foo", 30)))
+                .isInstanceOf(CreateCustomerInvalidatedException.class);
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void removeCustomerByIdFailsWhenMissing() {
+        when(customerDAO.removeCustomerById(1)).thenReturn(Mono.just(false));
+
+        assertThatThrownBy(() -> underTest.removeCustomerById(1).block())
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void removeCustomersByIdsDropsNullsAndDuplicates() {
+        when(customerDAO.removeCustomersByIds(Set.of(1, 2))).thenReturn(Mono.just(1));
+
+        assertThat(underTest.removeCustomersByIds(Arrays.asList(1, null, 2, 1)).block())
+                .isEqualTo(new BulkRemovalResult(2, 1));
+    }
+
+    @Test
+    void removeCustomersByIdsSkipsEmptyRequest() {
+        assertThat(underTest.removeCustomersByIds(List.of()).block()).isEqualTo(new BulkRemovalResult(0, 0));
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void updateCustomerByIdMapsResults() {
+        Customer updated = new Customer(1, "foo", "foo@bar.com", 30);
+        CustomerUpdateRequest update = new CustomerUpdateRequest("foo", null, null);
+        when(customerDAO.updateCustomerById(1, update)).thenReturn(Mono.just(CustomerUpdateResult.updated(updated)));
+        when(customerDAO.updateCustomerById(2, update)).thenReturn(Mono.just(CustomerUpdateResult.emailTaken()));
+
+        assertThat(underTest.updateCustomerById(1, new CustomerUpdateRequest("foo", " ", null)).block()).isEqualTo(updated);
+        assertThatThrownBy(() -> underTest.updateCustomerById(2, update).block())
+                .isInstanceOf(EmailTakenException.class);
+        assertThatThrownBy(() -> underTest.updateCustomerById(3, new CustomerUpdateRequest(null, "", null)))
+                .isInstanceOf(UpdateCustomerInvalidatedException.class);
+    }
+}
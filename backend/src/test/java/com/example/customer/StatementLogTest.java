@@ -0,0 +1,77 @@
+package com.example.customer;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.KeyValuePair;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementLogTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(StatementLog.class);
+    private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        events.start();
+        logger.addAppender(events);
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(events);
+        logger.setLevel(null);
+    }
+
+    @Test
+    void alwaysLogsSlowStatements() {
+        StatementLog underTest = new StatementLog(Duration.ZERO, 0.0);
+
+        underTest.record("insertCustomer", System.nanoTime(), 1);
+
+        assertThat(events.list).hasSize(1);
+        ILoggingEvent event = events.list.get(0);
+        assertThat(event.getLevel()).isEqualTo(Level.WARN);
+        assertThat(keyValues(event))
+                .containsEntry("statement", "insertCustomer")
+                .containsEntry("rows", 1)
+                .containsEntry("slow", true)
+                .containsKey("durationMs");
+    }
+
+    @Test
+    void samplesFastStatements() {
+        StatementLog never = new StatementLog(Duration.ofHours(1), 0.0);
+        StatementLog always = new StatementLog(Duration.ofHours(1), 1.0);
+
+        for (int i = 0; i < 100; i++) {
+            never.record("removeCustomerById", System.nanoTime(), 1);
+        }
+        assertThat(events.list).isEmpty();
+
+        always.record("removeCustomerById", System.nanoTime(), 0);
+        assertThat(events.list).singleElement().satisfies(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.INFO);
+            assertThat(keyValues(event)).containsEntry("slow", false).containsEntry("rows", 0);
+        });
+    }
+
+    private static Map<String, Object> keyValues(ILoggingEvent event) {
+        Map<String, Object> keyValues = new HashMap<>();
+        for (KeyValuePair pair : event.getKeyValuePairs()) {
+            keyValues.put(pair.key, pair.value);
+        }
+        return keyValues;
+    }
+}
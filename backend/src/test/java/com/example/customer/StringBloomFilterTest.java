@@ -0,0 +1,46 @@
+package com.example.customer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StringBloomFilterTest {
+
+    @Test
+    void neverForgetsAnAddedValue() {
+        StringBloomFilter underTest = new StringBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            underTest.put("customer" + i + "@bar.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(underTest.mightContain("customer" + i + "@bar.com")).isTrue();
+        }
+        assertThat(underTest.insertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    void keepsFalsePositivesNearTheConfiguredRate() {
+        StringBloomFilter underTest = new StringBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            underTest.put("customer" + i + "@bar.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (underTest.mightContain("stranger" + i + "@bar.com")) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void rejectsInvalidSizing() {
+        assertThatThrownBy(() -> new StringBloomFilter(0, 0.01))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new StringBloomFilter(100, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
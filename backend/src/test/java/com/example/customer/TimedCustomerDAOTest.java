@@ -0,0 +1,70 @@
+package com.example.customer;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimedCustomerDAOTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private CustomerDAO underTest;
+    @Mock CustomerDAO customerDAO;
+
+    @BeforeEach
+    void setUp() {
+        underTest = TimedCustomerDAO.wrap(customerDAO, "jdbc", registry);
+    }
+
+    @Test
+    void timesSuccessfulCalls() {
+        Customer customer = new Customer(1, "foo", "foo@bar.com", 30);
+        when(customerDAO.selectCustomerById(1)).thenReturn(Optional.of(customer));
+
+        assertThat(underTest.selectCustomerById(1)).contains(customer);
+        assertThat(timer("selectCustomerById", "success").count()).isEqualTo(1);
+        assertThat(timer("selectCustomerById", "error").count()).isZero();
+    }
+
+    @Test
+    void timesFailedCallsAndRethrowsTheOriginalException() {
+        Customer customer = new Customer("foo", "foo@bar.com", 30);
+        DuplicateKeyException failure = new DuplicateKeyException("taken");
+        doThrow(failure).when(customerDAO).insertCustomer(customer);
+
+        assertThatThrownBy(() -> underTest.insertCustomer(customer)).isSameAs(failure);
+        assertThat(timer("insertCustomer", "error").count()).isEqualTo(1);
+    }
+
+    @Test
+    void registersATimerPerMethodAndOutcomeUpFront() {
+        assertThat(registry.find(TimedCustomerDAO.METRIC_NAME).timers())
+                .hasSize(CustomerDAO.class.getMethods().length * 2);
+        assertThat(timer("forEachCustomer", "success")).isNotNull();
+    }
+
+    @Test
+    void doesNotTimeObjectMethods() {
+        assertThat(underTest.toString()).isEqualTo(customerDAO.toString());
+        assertThat(registry.find(TimedCustomerDAO.METRIC_NAME).tag("method", "toString").timers()).isEmpty();
+    }
+
+    private Timer timer(String method, String outcome) {
+        return registry.get(TimedCustomerDAO.METRIC_NAME)
+                .tag("method", method)
+                .tag("implementation", "jdbc")
+                .tag("outcome", outcome)
+                .timer();
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.journey;
 
+import com.example.customer.BulkRemovalResult;
 import com.example.customer.Customer;
+import com.example.customer.CustomerPage;
 import com.example.customer.CustomerRegistrationRequest;
 import com.example.customer.CustomerUpdateRequest;
 import com.github.javafaker.Faker;
@@ -13,6 +15,7 @@ import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -40,26 +43,18 @@ public class CustomerIntegrationTest {
                 .body(Mono.just(request), CustomerRegistrationRequest.class)
                 .exchange()
                 .expectStatus()
-                .isOk();
-
-        // get all customers
-        List<Customer> allCustomers = webTestClient.get().uri(baseUrl)
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
                 .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
+                .expectHeader()
+                .valueMatches("Location", ".*/customers/\\d+$");
 
         // make sure customer is present
+        Customer registeredCustomer = findCustomerByEmail(email);
         Customer expectedCustomer = new Customer(name, email, age);
-        assertThat(allCustomers).usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
-                .contains(expectedCustomer);
+        assertThat(registeredCustomer).usingRecursiveComparison().ignoringFields("id")
+                .isEqualTo(expectedCustomer);
 
         // get customer by id
-        var id = allCustomers.stream().filter(c -> c.getEmail().equals(email)).map(Customer::getId).findFirst().orElseThrow();
+        var id = registeredCustomer.getId();
         expectedCustomer.setId(id);
 
         webTestClient.get().uri(baseUrl + "/{id}", id)
@@ -91,20 +86,8 @@ public class CustomerIntegrationTest {
                 .expectStatus()
                 .isOk();
 
-        // get all customers
-        List<Customer> allCustomers = webTestClient.get().uri(baseUrl)
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
-
         // get customer id
-        Customer expectedCustomer = new Customer(name, email, age);
-        var id = allCustomers.stream().filter(c -> c.getEmail().equals(email)).map(Customer::getId).findFirst().orElseThrow();
+        var id = findCustomerByEmail(email).getId();
 
         //try to delete
         webTestClient.delete().uri(baseUrl + "/{id}", id)
@@ -121,6 +104,42 @@ public class CustomerIntegrationTest {
                 .isNotFound();
     }
 
+    @Test
+    void canDeleteCustomersInBulk() {
+        Faker faker = new Faker();
+        String baseUrl = "/customers";
+        String firstEmail = UUID.randomUUID().toString() + '@' + faker.internet().domainName();
+        String secondEmail = UUID.randomUUID().toString() + '@' + faker.internet().domainName();
+        for (String email : new String[] { firstEmail, secondEmail }) {
+            webTestClient.post().uri(baseUrl)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Mono.just(new CustomerRegistrationRequest(faker.name().fullName(), email, 30)),
+                            CustomerRegistrationRequest.class)
+                    .exchange()
+                    .expectStatus()
+                    .isOk();
+        }
+        Integer firstId = findCustomerByEmail(firstEmail).getId();
+        Integer secondId = findCustomerByEmail(secondEmail).getId();
+
+        webTestClient.delete().uri(uriBuilder -> uriBuilder.path(baseUrl)
+                        .queryParam("ids", firstId, secondId, -1)
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(BulkRemovalResult.class)
+                .isEqualTo(new BulkRemovalResult(3, 2));
+
+        webTestClient.get().uri(baseUrl + "/{id}", firstId)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
     @Test
     void canUpdateCustomer() {
         // insert a customer
@@ -141,20 +160,8 @@ public class CustomerIntegrationTest {
                 .expectStatus()
                 .isOk();
 
-        // get all customers
-        List<Customer> allCustomers = webTestClient.get().uri(baseUrl)
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
-
         // get customer id
-        Customer expectedCustomer = new Customer(name, email, age);
-        var id = allCustomers.stream().filter(c -> c.getEmail().equals(email)).map(Customer::getId).findFirst().orElseThrow();
+        var id = findCustomerByEmail(email).getId();
 
         // create update request
         String newName = name + "2";
@@ -180,4 +187,272 @@ public class CustomerIntegrationTest {
                 .isEqualTo(expectedUpdatedCustomer);
 
     }
+
+    @Test
+    void answersNotModifiedWhileTheCustomerIsUnchanged() {
+        Faker faker = new Faker();
+        String email = UUID.randomUUID().toString() + '@' + faker.internet().domainName();
+        String name = faker.name().fullName();
+        Integer age = faker.number().numberBetween(20, 70);
+
+        webTestClient.post().uri("/customers")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerRegistrationRequest(name, email, age)), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+        var id = findCustomerByEmail(email).getId();
+
+        String eTag = webTestClient.get().uri("/customers/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(eTag).isNotNull();
+
+        webTestClient.get().uri("/customers/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectBody()
+                .isEmpty();
+
+        // an update bumps the version, so the same ETag no longer matches
+        webTestClient.post().uri("/customers/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerUpdateRequest(name + "2", null, null)), CustomerUpdateRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        webTestClient.get().uri("/customers/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .value("ETag", value -> assertThat(value).isNotEqualTo(eTag));
+    }
+
+    @Test
+    void answersNotModifiedForAnUnchangedPage() {
+        String eTag = webTestClient.get().uri("/customers?age={age}&limit=10", 70)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(CustomerPage.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(eTag).isNotNull();
+
+        webTestClient.get().uri("/customers?age={age}&limit=10", 70)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+    }
+
+    @Test
+    void agePagesFollowWritesAndCanBeGzipped() {
+        Faker faker = new Faker();
+        String email = UUID.randomUUID().toString() + '@' + faker.internet().domainName();
+        String name = faker.name().fullName();
+        int age = 71;
+
+        webTestClient.post().uri("/customers")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerRegistrationRequest(name, email, age)), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+        var id = findCustomerByEmail(email).getId();
+        assertThat(customersAged(age)).anyMatch(c -> c.getId().equals(id) && c.getName().equals(name));
+
+        // the cached page is dropped by the update, not served until it expires
+        webTestClient.post().uri("/customers/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerUpdateRequest(name + "2", null, null)), CustomerUpdateRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+        assertThat(customersAged(age)).anyMatch(c -> c.getId().equals(id) && c.getName().equals(name + "2"));
+
+        webTestClient.post().uri("/customers/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerUpdateRequest(null, null, age + 1)), CustomerUpdateRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+        assertThat(customersAged(age)).noneMatch(c -> c.getId().equals(id));
+        assertThat(customersAged(age + 1)).anyMatch(c -> c.getId().equals(id));
+
+        // pages below the gzip threshold are always sent as they are
+        webTestClient.get().uri("/customers?age={age}&limit=1", age + 1)
+                .header("Accept-Encoding", "gzip")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .doesNotExist("Content-Encoding");
+    }
+
+    @Test
+    void canStreamCustomers() {
+        Faker faker = new Faker();
+        String email = UUID.randomUUID().toString() + '@' + faker.internet().domainName();
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                faker.name().fullName(), email, faker.number().numberBetween(20, 70)
+        );
+
+        webTestClient.post().uri("/customers")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        // every line of the export is one customer document
+        String body = webTestClient.get().uri("/customers/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(body).isNotNull();
+        assertThat(body.lines()).allSatisfy(line -> assertThat(line).startsWith("{").endsWith("}"));
+        assertThat(body.lines()).anyMatch(line -> line.contains(email));
+    }
+
+    @Test
+    void returnsOnlyTheRequestedFields() {
+        Faker faker = new Faker();
+        String email = UUID.randomUUID().toString() + '@' + faker.internet().domainName();
+        int age = 72;
+
+        webTestClient.post().uri("/customers")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerRegistrationRequest(faker.name().fullName(), email, age)),
+                        CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+        var id = findCustomerByEmail(email).getId();
+
+        webTestClient.get().uri("/customers/{id}?fields=email", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(id)
+                .jsonPath("$.email").isEqualTo(email)
+                .jsonPath("$.name").doesNotExist()
+                .jsonPath("$.age").doesNotExist();
+
+        webTestClient.get().uri("/customers?age={age}&limit=1000&fields=email", age)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.customers[?(@.email == '%s')].id".formatted(email)).isEqualTo(id)
+                .jsonPath("$.customers[0].name").doesNotExist()
+                .jsonPath("$.customers[0].age").doesNotExist();
+
+        webTestClient.get().uri("/customers/{id}?fields=password", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void searchesNamesAndEmails() {
+        Faker faker = new Faker();
+        String token = "zq" + UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+        String email = token + '@' + faker.internet().domainName();
+
+        webTestClient.post().uri("/customers")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerRegistrationRequest(faker.name().fullName(), email, 30)),
+                        CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        webTestClient.get().uri("/customers/search?q={q}&limit=5", token.substring(0, 6))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(Customer.class)
+                .value(customers -> assertThat(customers).extracting(Customer::getEmail).contains(email));
+
+        webTestClient.get().uri("/customers/search?q= ")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    private List<Customer> customersAged(int age) {
+        CustomerPage page = webTestClient.get().uri("/customers?age={age}&limit=1000", age)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerPage.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(page).isNotNull();
+        return page.customers();
+    }
+
+    private Customer findCustomerByEmail(String email) {
+        // walk the keyset pages until the customer shows up
+        String cursor = null;
+        do {
+            String after = cursor;
+            CustomerPage page = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/customers")
+                            .queryParam("limit", 1000)
+                            .queryParamIfPresent("after", Optional.ofNullable(after))
+                            .build())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBody(CustomerPage.class)
+                    .returnResult()
+                    .getResponseBody();
+            assertThat(page).isNotNull();
+            var match = page.customers().stream().filter(c -> c.getEmail().equals(email)).findFirst();
+            if (match.isPresent()) {
+                return match.get();
+            }
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        throw new AssertionError("Customer with email [%s] is not listed".formatted(email));
+    }
 }
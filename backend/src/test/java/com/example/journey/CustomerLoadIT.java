@@ -0,0 +1,260 @@
+package com.example.journey;
+
+import com.example.AbstractTestcontainers;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a mixed read/write load at a fixed request rate and checks latency and throughput budgets.
+ * <p>
+ * Each client sends on a fixed schedule, and latency is measured from the moment a request was due
+ * rather than from when it was actually sent. A stalled server therefore shows up as queueing in the
+ * percentiles instead of silently lowering the request rate (coordinated omission).
+ * <p>
+ * Not part of the default build; run it with {@code mvn -Pload verify -Dit.test=CustomerLoadIT} and
+ * tune it with system properties, e.g. {@code -Dload.rate=2000 -Dload.clients=64 -Dload.duration=PT2M}.
+ * The budgets are {@code load.budget.p99}, {@code load.budget.p999} (both durations) and
+ * {@code load.budget.throughput}, the fraction of the target rate that must be achieved. Percentile
+ * distributions are written to {@code target/load/<endpoint>.hgrm}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CustomerLoadIT extends AbstractTestcontainers {
+    private static final Logger log = LoggerFactory.getLogger(CustomerLoadIT.class);
+    private static final int CUSTOMERS = Integer.getInteger("load.customers", 10_000);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 32);
+    private static final int RATE = Integer.getInteger("load.rate", 500);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT30S"));
+    private static final Duration P99_BUDGET = Duration.parse(System.getProperty("load.budget.p99", "PT0.2S"));
+    private static final Duration P999_BUDGET = Duration.parse(System.getProperty("load.budget.p999", "PT0.5S"));
+    private static final double THROUGHPUT_BUDGET = Double.parseDouble(System.getProperty("load.budget.throughput", "0.95"));
+    private static final Path REPORT_DIR = Path.of("target", "load");
+
+    /**
+     * The traffic mix, by share of requests.
+     */
+    enum Endpoint {
+        LIST(30), BY_ID(30), BY_AGE(15), REGISTER(10), UPDATE(10), DELETE(5);
+
+        final int weight;
+
+        Endpoint(int weight) {
+            this.weight = weight;
+        }
+
+        static Endpoint pick() {
+            int roll = ThreadLocalRandom.current().nextInt(100);
+            for (Endpoint endpoint : values()) {
+                roll -= endpoint.weight;
+                if (roll < 0) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalStateException("Weights do not add up to 100");
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, AtomicLong> failures = new EnumMap<>(Endpoint.class);
+    // customers registered by the run, which are the only ones it deletes
+    private final Queue<Integer> registered = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private int[] seededIds;
+
+    @Test
+    void mixedTrafficStaysWithinBudget() throws Exception {
+        for (Endpoint endpoint : Endpoint.values()) {
+            // microseconds, auto-resizing, three significant digits
+            latencies.put(endpoint, new ConcurrentHistogram(3));
+            failures.put(endpoint, new AtomicLong());
+        }
+        seed();
+
+        drive(WARMUP);
+        latencies.values().forEach(Histogram::reset);
+        failures.values().forEach(failed -> failed.set(0));
+        long sent = drive(DURATION);
+
+        double throughput = sent / (DURATION.toMillis() / 1000.0);
+        report(throughput);
+
+        assertThat(failures).allSatisfy((endpoint, failed) -> assertThat(failed.get())
+                .as("failed %s requests", endpoint)
+                .isZero());
+        assertThat(throughput)
+                .as("requests per second")
+                .isGreaterThanOrEqualTo(RATE * THROUGHPUT_BUDGET);
+        assertThat(latencies).allSatisfy((endpoint, histogram) -> {
+            assertThat(histogram.getValueAtPercentile(99.0))
+                    .as("p99 of %s in microseconds", endpoint)
+                    .isLessThanOrEqualTo(TimeUnit.NANOSECONDS.toMicros(P99_BUDGET.toNanos()));
+            assertThat(histogram.getValueAtPercentile(99.9))
+                    .as("p99.9 of %s in microseconds", endpoint)
+                    .isLessThanOrEqualTo(TimeUnit.NANOSECONDS.toMicros(P999_BUDGET.toNanos()));
+        });
+    }
+
+    private void seed() {
+        var sql = """
+                INSERT INTO customer(name, email, age)
+                SELECT 'Load ' || g, 'load-' || ? || '-' || g || '@example.com', 20 + g % 50
+                FROM generate_series(1, ?) g
+                RETURNING id
+                """;
+        seededIds = getJdbcTemplate()
+                .queryForList(sql, Integer.class, System.nanoTime(), CUSTOMERS)
+                .stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * @return the number of requests completed within {@code duration}
+     */
+    private long drive(Duration duration) throws Exception {
+        long interval = TimeUnit.SECONDS.toNanos(1) * CLIENTS / RATE;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        AtomicLong completed = new AtomicLong();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>(CLIENTS);
+            for (int i = 0; i < CLIENTS; i++) {
+                long firstDue = start + interval * i / CLIENTS;
+                running.add(clients.submit(() -> {
+                    for (long due = firstDue; due < end; due += interval) {
+                        long wait = due - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        Endpoint endpoint = Endpoint.pick();
+                        boolean ok = send(endpoint);
+                        long done = System.nanoTime();
+                        latencies.get(endpoint).recordValue(TimeUnit.NANOSECONDS.toMicros(done - due));
+                        if (!ok) {
+                            failures.get(endpoint).incrementAndGet();
+                        }
+                        if (done < end) {
+                            completed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> clientLoop : running) {
+                clientLoop.get();
+            }
+        }
+        return completed.get();
+    }
+
+    private boolean send(Endpoint endpoint) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (endpoint) {
+            case LIST -> get("/customers?limit=50") == 200;
+            case BY_ID -> get("/customers/" + randomSeededId()) == 200;
+            case BY_AGE -> get("/customers?age=" + random.nextInt(20, 70) + "&limit=50") == 200;
+            case REGISTER -> register();
+            case UPDATE -> post("/customers/" + randomSeededId(),
+                    "{\"name\":\"Load %d\"}".formatted(sequence.incrementAndGet())).statusCode() == 200;
+            case DELETE -> {
+                Integer id = registered.poll();
+                // nothing of ours left to delete yet: keep the request rate by registering instead
+                yield id == null ? register() : send(HttpRequest.newBuilder(uri("/customers/" + id)).DELETE()) == 200;
+            }
+        };
+    }
+
+    private boolean register() throws IOException, InterruptedException {
+        long n = sequence.incrementAndGet();
+        HttpResponse<Void> response = post("/customers",
+                "{\"name\":\"Load %d\",\"email\":\"load-%d-%d@example.com\",\"age\":30}".formatted(n, System.nanoTime(), n));
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        response.headers().firstValue("Location")
+                .map(location -> Integer.valueOf(location.substring(location.lastIndexOf('/') + 1)))
+                .ifPresent(registered::add);
+        return true;
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    private HttpResponse<Void> post(String path, String json) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.discarding());
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private int randomSeededId() {
+        return seededIds[ThreadLocalRandom.current().nextInt(seededIds.length)];
+    }
+
+    private void report(double throughput) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        StringBuilder table = new StringBuilder()
+                .append("%-9s %9s %9s %9s %9s %9s %7s".formatted(
+                        "endpoint", "count", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "failed"));
+        for (Map.Entry<Endpoint, Histogram> entry : latencies.entrySet()) {
+            Histogram histogram = entry.getValue();
+            table.append('\n').append("%-9s %9d %9.1f %9.1f %9.1f %9.1f %7d".formatted(
+                    entry.getKey(),
+                    histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(95) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    failures.get(entry.getKey()).get()));
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(REPORT_DIR.resolve(entry.getKey().name().toLowerCase() + ".hgrm")))) {
+                // in milliseconds, the unit the HdrHistogram plotter expects
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        log.info("{} clients, target {} req/s, achieved {} req/s\n{}", CLIENTS, RATE, Math.round(throughput), table);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.journey;
+
+import com.example.Main;
+import com.example.customer.Customer;
+import com.example.customer.CustomerDAO;
+import com.example.customer.CustomerRowMapper;
+import com.example.customer.ForwardingCustomerDAO;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@code GET /customers/{id}} under the {@code virtual-threads} profile as shipped, and with only
+ * {@code spring.threads.virtual.enabled} turned back off, when every lookup waits on the database. The
+ * jdbc DAO is wrapped so a lookup holds its connection for {@link #QUERY_LATENCY}. With far more
+ * clients than connections the profile's pool is the limit either way, so virtual threads must serve
+ * at least as many requests; what they change is that nothing queues beyond the pool, whose short
+ * {@code connection-timeout} answers the overflow quickly instead of letting latency grow. The log
+ * line reports both runs, failures included.
+ * <p>
+ * Part of the load profile: {@code mvn -Pload verify -Dit.test=CustomerVirtualThreadsLoadIT}.
+ */
+@Testcontainers
+class CustomerVirtualThreadsLoadIT {
+    private static final Logger log = LoggerFactory.getLogger(CustomerVirtualThreadsLoadIT.class);
+    private static final Duration QUERY_LATENCY = Duration.ofMillis(200);
+    // connection-timeout in application-virtual-threads.yml
+    private static final Duration CONNECTION_TIMEOUT = Duration.ofSeconds(3);
+    private static final int CLIENTS = 2_000;
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(10);
+
+    @Container
+    private static final PostgreSQLContainer<?> postgreSQLContainer =
+            new PostgreSQLContainer<>("postgres:latest")
+                    .withDatabaseName("customer-load-test")
+                    .withUsername("amigoscode")
+                    .withPassword("password");
+
+    @Test
+    void virtualThreadsKeepThroughputAndFailOverloadFast() throws Exception {
+        Run platform = run(false);
+        Run virtual = run(true);
+
+        log.info("GET /customers/{id} at {} ms per query with the virtual-threads profile's pool: "
+                        + "platform threads {}, virtual threads {}",
+                QUERY_LATENCY.toMillis(), platform, virtual);
+
+        assertThat(virtual.requestsPerSecond())
+                .as("virtual threads req/s against %s on platform threads", platform)
+                .isGreaterThanOrEqualTo(platform.requestsPerSecond() * 0.9);
+        assertThat(virtual.slowest())
+                .as("slowest request on virtual threads, served or failed")
+                .isLessThan(CONNECTION_TIMEOUT.plus(QUERY_LATENCY).plusSeconds(2));
+    }
+
+    private static Run run(boolean virtualThreads) throws Exception {
+        // command-line arguments, so they win over application.yml and the profile
+        String[] args = {
+                "--spring.profiles.active=virtual-threads",
+                "--server.port=0",
+                "--spring.datasource.url=" + postgreSQLContainer.getJdbcUrl(),
+                "--spring.datasource.username=" + postgreSQLContainer.getUsername(),
+                "--spring.datasource.password=" + postgreSQLContainer.getPassword(),
+                "--spring.jpa.show-sql=false",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--customer.dao.implementation=slowJdbc",
+                "--customer.cache.enabled=false",
+                "--customer.email-filter.enabled=false"
+        };
+        try (ConfigurableApplicationContext context =
+                     new SpringApplicationBuilder(Main.class, SlowDatabaseConfig.class).run(args)) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            jdbcTemplate.update("INSERT INTO customer(name, email, age) VALUES ('foo', 'load@test.com', 30) ON CONFLICT DO NOTHING");
+            Integer id = jdbcTemplate.queryForObject("SELECT id FROM customer WHERE email = 'load@test.com'", Integer.class);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:%d/customers/%d".formatted(port, id));
+
+            drive(uri, WARMUP);
+            return drive(uri, MEASUREMENT);
+        }
+    }
+
+    private static Run drive(URI uri, Duration duration) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong slowestNanos = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>(CLIENTS);
+            for (int i = 0; i < CLIENTS; i++) {
+                running.add(clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (HttpTimeoutException e) {
+                            ok = false;
+                        }
+                        long done = System.nanoTime();
+                        slowestNanos.accumulateAndGet(done - start, Math::max);
+                        if (done < deadline) {
+                            (ok ? completed : failed).incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> clientLoop : running) {
+                clientLoop.get();
+            }
+        }
+        return new Run(completed.get() / (duration.toMillis() / 1000.0), failed.get(), Duration.ofNanos(slowestNanos.get()));
+    }
+
+    private record Run(double requestsPerSecond, long failed, Duration slowest) {
+        @Override
+        public String toString() {
+            return "%.0f req/s, %d failed, slowest %d ms".formatted(requestsPerSecond, failed, slowest.toMillis());
+        }
+    }
+
+    @Configuration
+    static class SlowDatabaseConfig {
+        @Bean
+        CustomerDAO slowJdbc(@Qualifier("jdbc") CustomerDAO jdbc, JdbcTemplate jdbcTemplate, CustomerRowMapper rowMapper) {
+            double seconds = QUERY_LATENCY.toMillis() / 1000.0;
+            return new ForwardingCustomerDAO(jdbc) {
+                @Override
+                public Optional<Customer> selectCustomerById(Integer id) {
+                    var sql = """
+                            SELECT id, name, email, age, version
+                            FROM customer, pg_sleep(?)
+                            WHERE id = ?
+                            """;
+                    return jdbcTemplate.query(sql, rowMapper, seconds, id).stream().findFirst();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.journey;
+
+import com.example.AbstractTestcontainers;
+import com.example.customer.Customer;
+import com.example.customer.CustomerPage;
+import com.example.customer.CustomerRegistrationRequest;
+import com.example.customer.CustomerUpdateRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveCustomerIntegrationTest extends AbstractTestcontainers {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @DynamicPropertySource
+    private static void registerR2dbcProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://%s:%d/%s".formatted(
+                postgreSQLContainer.getHost(),
+                postgreSQLContainer.getFirstMappedPort(),
+                postgreSQLContainer.getDatabaseName()
+        ));
+        registry.add("spring.r2dbc.username", postgreSQLContainer::getUsername);
+        registry.add("spring.r2dbc.password", postgreSQLContainer::getPassword);
+    }
+
+    @Test
+    void canRegisterUpdateAndDeleteCustomer() {
+        String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        String location = webTestClient.post().uri("/customers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerRegistrationRequest("foo", email, 30)), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .valueMatches("Location", ".*/customers/\\d+$")
+                .returnResult(Void.class)
+                .getResponseHeaders()
+                .getLocation()
+                .getPath();
+        Integer id = Integer.valueOf(location.substring(location.lastIndexOf('/') + 1));
+
+        webTestClient.post().uri("/customers/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerUpdateRequest("bar", null, null)), CustomerUpdateRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(Customer.class)
+                .isEqualTo(new Customer(id, "bar", email, 30));
+
+        webTestClient.delete().uri("/customers/{id}", id)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        webTestClient.get().uri("/customers/{id}", id)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
+    @Test
+    void canPageAndStreamCustomers() {
+        for (int i = 0; i < 3; i++) {
+            String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+            webTestClient.post().uri("/customers")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Mono.just(new CustomerRegistrationRequest("foo", email, 30)), CustomerRegistrationRequest.class)
+                    .exchange()
+                    .expectStatus()
+                    .isOk();
+        }
+
+        CustomerPage page = webTestClient.get().uri("/customers?limit=2")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerPage.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(page.customers()).hasSize(2);
+        assertThat(page.nextCursor()).isNotNull();
+
+        List<Customer> streamed = webTestClient.get().uri("/customers/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertThat(streamed).hasSizeGreaterThanOrEqualTo(3).extracting(Customer::getId).isSorted();
+    }
+}
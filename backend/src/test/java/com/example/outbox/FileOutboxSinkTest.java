@@ -0,0 +1,39 @@
+package com.example.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileOutboxSinkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void appendsOneJsonLinePerEvent(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("events/customer-events.ndjson");
+        FileOutboxSink underTest = new FileOutboxSink(file, objectMapper);
+
+        underTest.publish(List.of(new CustomerChangeEvent(
+                1, 7, CustomerChangeEvent.Operation.INSERT, "{\"id\": 7, \"age\": 30}", Instant.EPOCH)));
+        underTest.publish(List.of(new CustomerChangeEvent(
+                2, 7, CustomerChangeEvent.Operation.DELETE, null, Instant.EPOCH)));
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(2);
+        JsonNode insert = objectMapper.readTree(lines.get(0));
+        assertThat(insert.get("operation").asText()).isEqualTo("INSERT");
+        assertThat(insert.get("customer").get("age").asInt()).isEqualTo(30);
+        JsonNode delete = objectMapper.readTree(lines.get(1));
+        assertThat(delete.get("id").asLong()).isEqualTo(2);
+        assertThat(delete.get("customer").isNull()).isTrue();
+    }
+}
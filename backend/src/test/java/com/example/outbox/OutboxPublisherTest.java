@@ -0,0 +1,181 @@
+package com.example.outbox;
+
+import com.example.AbstractTestcontainers;
+import com.example.customer.Customer;
+import com.example.customer.CustomerJDBCDataAccessService;
+import com.example.customer.CustomerRowMapper;
+import com.example.customer.CustomerUpdateRequest;
+import com.example.customer.StatementLog;
+import com.example.outbox.CustomerChangeEvent.Operation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OutboxPublisherTest extends AbstractTestcontainers {
+
+    private final JdbcTemplate jdbcTemplate = getJdbcTemplate();
+    private final TransactionTemplate transactionTemplate =
+            new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+    private final OutboxProperties properties = new OutboxProperties(
+            true, OutboxProperties.Sink.MEMORY, Path.of("unused"), 1000, 2, Duration.ofSeconds(1));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final InMemoryOutboxSink sink = new InMemoryOutboxSink(1000);
+    // acknowledges like a durable broker, recording into the in-memory sink
+    private final OutboxSink durableSink = sink::publish;
+    private CustomerJDBCDataAccessService customerDAO;
+    private OutboxPublisher underTest;
+
+    @BeforeEach
+    void setUp() {
+        new OutboxCapture(jdbcTemplate).set(true);
+        customerDAO = new CustomerJDBCDataAccessService(
+                jdbcTemplate,
+                new CustomerRowMapper(),
+                new StatementLog(Duration.ofSeconds(1), 0.0)
+        );
+        underTest = new OutboxPublisher(jdbcTemplate, transactionTemplate, durableSink, properties, registry);
+        // events left behind by other tests sharing the container
+        underTest.drain();
+        sink.clear();
+    }
+
+    @Test
+    void publishesInsertUpdateAndDeleteInOrder() {
+        int id = insertCustomer();
+        customerDAO.updateCustomerById(id, new CustomerUpdateRequest(null, null, 42));
+        customerDAO.removeCustomerById(id);
+
+        underTest.drain();
+
+        List<CustomerChangeEvent> events = eventsOf(id);
+        assertThat(events).extracting(CustomerChangeEvent::operation)
+                .containsExactly(Operation.INSERT, Operation.UPDATE, Operation.DELETE);
+        assertThat(events).extracting(CustomerChangeEvent::id).isSorted();
+        assertThat(events.get(1).customer()).contains("\"age\": 42");
+        assertThat(events.get(2).customer()).isNull();
+        assertThat(outboxSize()).isZero();
+        assertThat(registry.get("customer.outbox.published").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void keepsEventsWhenTheSinkFailsAndPublishesThemAgainLater() {
+        OutboxPublisher failing = new OutboxPublisher(jdbcTemplate, transactionTemplate, batch -> {
+            throw new IOException("sink unavailable");
+        }, properties, new SimpleMeterRegistry());
+        int id = insertCustomer();
+
+        assertThatThrownBy(failing::publishBatch).hasRootCauseMessage("sink unavailable");
+        assertThat(outboxSize()).isEqualTo(1);
+
+        underTest.drain();
+        assertThat(eventsOf(id)).extracting(CustomerChangeEvent::operation).containsExactly(Operation.INSERT);
+        assertThat(outboxSize()).isZero();
+    }
+
+    @Test
+    void keepsEventsHandedToASinkThatIsNotDurable() {
+        OutboxPublisher inMemory = new OutboxPublisher(
+                jdbcTemplate, transactionTemplate, sink, properties, new SimpleMeterRegistry());
+        int id = insertCustomer();
+
+        inMemory.drain();
+        inMemory.drain();
+        // a restarted instance does not hand the marked rows over again
+        new OutboxPublisher(jdbcTemplate, transactionTemplate, sink, properties, new SimpleMeterRegistry()).drain();
+
+        assertThat(eventsOf(id)).extracting(CustomerChangeEvent::operation).containsExactly(Operation.INSERT);
+        assertThat(outboxSize()).isEqualTo(1);
+
+        // a durable sink still gets them
+        underTest.drain();
+        assertThat(eventsOf(id)).hasSize(2);
+        assertThat(outboxSize()).isZero();
+    }
+
+    @Test
+    void publishesAnEventWhoseTransactionCommitsAfterALaterOne() throws SQLException {
+        OutboxPublisher inMemory = new OutboxPublisher(
+                jdbcTemplate, transactionTemplate, sink, properties, new SimpleMeterRegistry());
+        String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        try (Connection slow = jdbcTemplate.getDataSource().getConnection()) {
+            slow.setAutoCommit(false);
+            // another age than insertCustomer's, whose customer_age_count row this transaction would lock
+            try (PreparedStatement insert = slow.prepareStatement(
+                    "INSERT INTO customer(name, email, age) VALUES ('slow', ?, 77)")) {
+                insert.setString(1, email);
+                insert.executeUpdate();
+            }
+            int later = insertCustomer();
+            inMemory.drain();
+            assertThat(eventsOf(later)).hasSize(1);
+
+            slow.commit();
+        }
+        int earlier = jdbcTemplate.queryForObject("SELECT id FROM customer WHERE email = ?", Integer.class, email);
+        inMemory.drain();
+
+        assertThat(eventsOf(earlier)).extracting(CustomerChangeEvent::operation).containsExactly(Operation.INSERT);
+    }
+
+    @Test
+    void capturesNothingWhileTheOutboxIsOff() {
+        new OutboxCapture(jdbcTemplate).set(false);
+        insertCustomer();
+
+        assertThat(outboxSize()).isZero();
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentEventsInMemory() {
+        InMemoryOutboxSink small = new InMemoryOutboxSink(2);
+        CustomerChangeEvent first = new CustomerChangeEvent(1, 1, Operation.INSERT, "{}", Instant.EPOCH);
+        CustomerChangeEvent second = new CustomerChangeEvent(2, 1, Operation.UPDATE, "{}", Instant.EPOCH);
+        CustomerChangeEvent third = new CustomerChangeEvent(3, 1, Operation.DELETE, null, Instant.EPOCH);
+
+        small.publish(List.of(first, second));
+        small.publish(List.of(third));
+
+        assertThat(small.events()).containsExactly(second, third);
+    }
+
+    @Test
+    void doesNotPublishUnchangedRows() {
+        int id = insertCustomer();
+        Customer customer = customerDAO.selectCustomerById(id).orElseThrow();
+        customerDAO.updateCustomer(customer);
+
+        underTest.drain();
+
+        assertThat(eventsOf(id)).extracting(CustomerChangeEvent::operation).containsExactly(Operation.INSERT);
+    }
+
+    private int insertCustomer() {
+        String email = UUID.randomUUID() + "@" + FAKER.internet().domainName();
+        customerDAO.insertCustomer(new Customer(FAKER.name().fullName(), email, 20));
+        return jdbcTemplate.queryForObject("SELECT id FROM customer WHERE email = ?", Integer.class, email);
+    }
+
+    private List<CustomerChangeEvent> eventsOf(int customerId) {
+        return sink.events().stream().filter(event -> event.customerId() == customerId).toList();
+    }
+
+    private int outboxSize() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM customer_outbox", Integer.class);
+    }
+}